@@ -0,0 +1,81 @@
+#!/usr/bin/env bash
+# Compares the startup time of single `status` and `history` runs on the plain JVM, with the AppCDS archive and as a
+# native executable. Build them first, modes whose artifacts are missing are skipped:
+#   mvn -DskipTests -Pcds package      # target/servermanager-1.0-SNAPSHOT.jar and .jsa
+#   mvn -DskipTests -Pnative package   # target/servermanager, needs a GraalVM JAVA_HOME
+# Usage: scripts/startup-benchmark.sh [RUNS] [EVENTS]
+set -euo pipefail
+
+RUNS=${1:-20}
+EVENTS=${2:-10000}
+TARGET=$(cd "$(dirname "$0")/../target" && pwd)
+JAR=$TARGET/servermanager-1.0-SNAPSHOT.jar
+ARCHIVE=$TARGET/servermanager-1.0-SNAPSHOT.jsa
+NATIVE=$TARGET/servermanager
+JAVA=${JAVA_HOME:+$JAVA_HOME/bin/}java
+COMMANDS=("status" "history --limit 20")
+
+WORK=$(mktemp -d)
+trap 'rm -rf "$WORK"' EXIT
+LOG=$WORK/events.log
+
+# Up/down cycles 37 seconds apart from 2024-01-01, dates computed in awk to stay independent of date(1) flavors
+awk -v n="$EVENTS" '
+function civil(days,   z, era, doe, yoe, doy, mp, d, m, y) {
+    z = days + 719468; era = int(z / 146097); doe = z - era * 146097
+    yoe = int((doe - int(doe / 1460) + int(doe / 36524) - int(doe / 146096)) / 365)
+    y = yoe + era * 400; doy = doe - (365 * yoe + int(yoe / 4) - int(yoe / 100)); mp = int((5 * doy + 2) / 153)
+    d = doy - int((153 * mp + 2) / 5) + 1; m = mp < 10 ? mp + 3 : mp - 9
+    return sprintf("%04d-%02d-%02d", m <= 2 ? y + 1 : y, m, d)
+}
+BEGIN {
+    split("starting up stopping down", statuses, " ")
+    for (i = 0; i < n; i++) {
+        t = 1704067200 + i * 37; s = t % 86400
+        printf "%s,%sT%02d:%02d:%02d\n", statuses[i % 4 + 1], civil(int(t / 86400)), s / 3600, s % 3600 / 60, s % 60
+    }
+}' > "$LOG"
+
+run() {
+    local command=$1
+    shift
+    printf '%s\nexit\n' "$command" | "$@" --log "$LOG" > /dev/null 2>&1
+}
+
+measure() {
+    local mode=$1 command=$2
+    shift 2
+    # Warm the page cache, then time each run
+    run "$command" "$@"
+    local times=()
+    for ((i = 0; i < RUNS; i++)); do
+        local start end
+        start=$(date +%s%N)
+        run "$command" "$@"
+        end=$(date +%s%N)
+        times+=($(((end - start) / 1000000)))
+    done
+    printf '%s\n' "${times[@]}" | sort -n | awk -v mode="$mode" -v command="$command" '
+        { t[NR] = $1; sum += $1 }
+        END { printf "%-8s %-20s %8d %8.1f %8d %8d\n", mode, command, t[int((NR + 1) / 2)], sum / NR, t[1], t[NR] }'
+}
+
+printf '%-8s %-20s %8s %8s %8s %8s\n' "mode" "command" "median" "mean" "min" "max"
+for command in "${COMMANDS[@]}"; do
+    if [[ -f $JAR ]]; then
+        measure jvm "$command" "$JAVA" -jar "$JAR"
+    else
+        echo "Skipping jvm, $JAR is missing" >&2
+    fi
+    if [[ -f $ARCHIVE ]]; then
+        measure cds "$command" "$JAVA" -XX:SharedArchiveFile="$ARCHIVE" -Xshare:auto -jar "$JAR"
+    else
+        echo "Skipping cds, $ARCHIVE is missing, build with -Pcds" >&2
+    fi
+    if [[ -x $NATIVE ]]; then
+        measure native "$command" "$NATIVE"
+    else
+        echo "Skipping native, $NATIVE is missing, build with -Pnative" >&2
+    fi
+done
+echo "Times in ms over $RUNS runs on a log of $EVENTS events"
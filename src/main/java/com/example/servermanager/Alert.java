@@ -0,0 +1,24 @@
+package com.example.servermanager;
+
+import java.time.LocalDateTime;
+
+/**
+ * An alert fired by the rule {@code rule} at {@code timestamp}.
+ */
+public record Alert(String rule, String message, LocalDateTime timestamp) {
+
+    /**
+     * Line format of the alert log: timestamp, rule name and message. Fields containing commas, quotes or line
+     * breaks are quoted as in RFC 4180, e.g. {@code "3 failed within 300s, first at 2024-01-01T00:00"}.
+     */
+    public String toCSV() {
+        return timestamp + "," + quote(rule) + "," + quote(message);
+    }
+
+    private static String quote(String field) {
+        if (field.indexOf(',') < 0 && field.indexOf('"') < 0 && field.indexOf('\n') < 0 && field.indexOf('\r') < 0) {
+            return field;
+        }
+        return '"' + field.replace("\"", "\"\"") + '"';
+    }
+}
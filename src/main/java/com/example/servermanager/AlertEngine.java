@@ -0,0 +1,185 @@
+package com.example.servermanager;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Evaluates {@link AlertRule}s incrementally as events are logged, instead of rescanning the log.
+ * <p>
+ * The engine listens to the {@link EventLogger} and only looks at the rules that mention the status of an event, each
+ * with constant work. A window rule keeps the timestamps of its last {@code count} matching events in a ring and
+ * fires when the oldest of them lies within the window of the newest; it then starts over, so a burst fires once per
+ * {@code count} events. A timeout rule schedules a timer on the given scheduler when its status is logged and
+ * cancels it when the expected status follows. Fired alerts are passed to the sink, e.g. an {@link AlertLog}.
+ * <p>
+ * Only events logged as they happen are evaluated. Imported and replicated history is skipped, it would fire alerts
+ * and start timeouts for events long past.
+ */
+@Slf4j
+public class AlertEngine implements Consumer<Event>, Closeable {
+    private final EventLogger eventLogger;
+    private final ScheduledExecutorService scheduler;
+    private final Clock clock;
+    private final Consumer<Alert> sink;
+    private final Map<String, List<Evaluator>> evaluators = new HashMap<>();
+    private final List<TimeoutEvaluator> timeouts = new ArrayList<>();
+    private boolean closed;
+
+    private interface Evaluator {
+        void accept(Event event);
+    }
+
+    public AlertEngine(EventLogger eventLogger, List<AlertRule> rules, ScheduledExecutorService scheduler, Clock clock,
+                       Consumer<Alert> sink) {
+        this.eventLogger = eventLogger;
+        this.scheduler = scheduler;
+        this.clock = clock;
+        this.sink = sink;
+        for (AlertRule rule : rules) {
+            switch (rule) {
+                case AlertRule.Window window -> register(window.status(), new WindowEvaluator(window));
+                case AlertRule.Timeout timeout -> {
+                    TimeoutEvaluator evaluator = new TimeoutEvaluator(timeout);
+                    timeouts.add(evaluator);
+                    register(timeout.status(), evaluator);
+                    if (!timeout.expected().equals(timeout.status())) {
+                        register(timeout.expected(), evaluator);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Starts evaluating the events logged from now on.
+     */
+    public void start() {
+        eventLogger.addLiveListener(this);
+    }
+
+    @Override
+    public synchronized void accept(Event event) {
+        if (closed) {
+            return;
+        }
+        List<Evaluator> interested = evaluators.get(event.status());
+        if (interested != null) {
+            for (Evaluator evaluator : interested) {
+                evaluator.accept(event);
+            }
+        }
+    }
+
+    /**
+     * Stops listening and cancels the pending timeouts.
+     */
+    @Override
+    public void close() {
+        eventLogger.removeLiveListener(this);
+        synchronized (this) {
+            closed = true;
+            timeouts.forEach(TimeoutEvaluator::cancel);
+        }
+    }
+
+    private void register(String status, Evaluator evaluator) {
+        evaluators.computeIfAbsent(status, s -> new ArrayList<>()).add(evaluator);
+    }
+
+    private void fire(Alert alert) {
+        try {
+            sink.accept(alert);
+        } catch (RuntimeException e) {
+            log.warn("Alert sink failed", e);
+        }
+    }
+
+    private final class WindowEvaluator implements Evaluator {
+        private final AlertRule.Window rule;
+        private final LocalDateTime[] times;
+        private int next;
+        private int size;
+
+        private WindowEvaluator(AlertRule.Window rule) {
+            this.rule = rule;
+            this.times = new LocalDateTime[rule.count()];
+        }
+
+        @Override
+        public void accept(Event event) {
+            times[next] = event.timestamp();
+            next = (next + 1) % times.length;
+            if (size < times.length) {
+                size++;
+            }
+            if (size < times.length) {
+                return;
+            }
+            // Full ring, the next slot holds the oldest of the last count events
+            LocalDateTime oldest = times[next];
+            if (Duration.between(oldest, event.timestamp()).compareTo(rule.window()) <= 0) {
+                fire(new Alert(rule.name(), rule + ", first at " + oldest, event.timestamp()));
+                size = 0;
+            }
+        }
+    }
+
+    private final class TimeoutEvaluator implements Evaluator {
+        private final AlertRule.Timeout rule;
+        private ScheduledFuture<?> pending;
+        private LocalDateTime since;
+        // Tells a timer that already started running apart from the current one
+        private long generation;
+
+        private TimeoutEvaluator(AlertRule.Timeout rule) {
+            this.rule = rule;
+        }
+
+        @Override
+        public void accept(Event event) {
+            if (event.status().equals(rule.expected())) {
+                cancel();
+            } else if (pending == null) {
+                since = event.timestamp();
+                long scheduled = ++generation;
+                try {
+                    pending = scheduler.schedule(() -> expire(scheduled), rule.timeout().toMillis(),
+                            TimeUnit.MILLISECONDS);
+                } catch (RejectedExecutionException e) {
+                    log.warn("Cannot time out alert rule {}, the scheduler is stopped", rule.name());
+                }
+            }
+        }
+
+        private void cancel() {
+            generation++;
+            if (pending != null) {
+                pending.cancel(false);
+                pending = null;
+            }
+        }
+
+        private void expire(long scheduled) {
+            synchronized (AlertEngine.this) {
+                if (closed || scheduled != generation) {
+                    return;
+                }
+                pending = null;
+                fire(new Alert(rule.name(), rule + ", since " + since, LocalDateTime.now(clock)));
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.servermanager;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * Appends fired alerts to their own file, one {@link Alert#toCSV()} line each, separate from the event log.
+ */
+public class AlertLog implements Consumer<Alert>, Closeable {
+    private final Path path;
+    private final BufferedWriter writer;
+
+    public AlertLog(Path path) throws IOException {
+        this.path = path;
+        this.writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    @Override
+    public synchronized void accept(Alert alert) {
+        try {
+            writer.write(alert.toCSV());
+            writer.newLine();
+            writer.flush();
+        } catch (IOException e) {
+            System.err.println("Error writing alert to " + path + ": " + e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        writer.close();
+    }
+}
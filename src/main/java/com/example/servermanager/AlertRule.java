@@ -0,0 +1,101 @@
+package com.example.servermanager;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A rule the {@link AlertEngine} evaluates against the logged events.
+ * <p>
+ * Rules are configured one per line as {@code NAME: RULE}, blank lines and lines starting with {@code #} are
+ * ignored:
+ * <pre>
+ * repeated-failures: 3 failed within 5m
+ * slow-start: starting without up for 60s
+ * </pre>
+ */
+public sealed interface AlertRule {
+    Pattern WINDOW = Pattern.compile("(\\d+)\\s+(\\S+)\\s+within\\s+(\\S+)");
+    Pattern TIMEOUT = Pattern.compile("(\\S+)\\s+without\\s+(\\S+)\\s+for\\s+(\\S+)");
+
+    String name();
+
+    /**
+     * Fires when {@code count} events with {@code status} are logged within {@code window}.
+     */
+    record Window(String name, String status, int count, Duration window) implements AlertRule {
+        public Window {
+            if (count < 1 || window.isNegative()) {
+                throw new IllegalArgumentException("Rule " + name + " needs a positive count and window");
+            }
+            status = status.toLowerCase();
+        }
+
+        @Override
+        public String toString() {
+            return count + " " + status + " within " + window.toSeconds() + "s";
+        }
+    }
+
+    /**
+     * Fires when {@code status} is logged and no {@code expected} event follows within {@code timeout}.
+     */
+    record Timeout(String name, String status, String expected, Duration timeout) implements AlertRule {
+        public Timeout {
+            if (timeout.isNegative() || timeout.isZero()) {
+                throw new IllegalArgumentException("Rule " + name + " needs a positive timeout");
+            }
+            status = status.toLowerCase();
+            expected = expected.toLowerCase();
+        }
+
+        @Override
+        public String toString() {
+            return status + " without " + expected + " for " + timeout.toSeconds() + "s";
+        }
+    }
+
+    static List<AlertRule> load(Path config) throws IOException {
+        List<AlertRule> rules = new ArrayList<>();
+        int lineNumber = 0;
+        for (String line : Files.readAllLines(config, StandardCharsets.UTF_8)) {
+            lineNumber++;
+            String trimmed = line.strip();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            try {
+                rules.add(parse(trimmed));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(config + " line " + lineNumber + ": " + e.getMessage());
+            }
+        }
+        return rules;
+    }
+
+    static AlertRule parse(String line) {
+        int separator = line.indexOf(':');
+        if (separator <= 0) {
+            throw new IllegalArgumentException("Use NAME: RULE");
+        }
+        String name = line.substring(0, separator).strip();
+        String rule = line.substring(separator + 1).strip();
+        Matcher window = WINDOW.matcher(rule);
+        if (window.matches()) {
+            return new Window(name, window.group(2), Integer.parseInt(window.group(1)),
+                    TieringPolicy.parseDuration(window.group(3)));
+        }
+        Matcher timeout = TIMEOUT.matcher(rule);
+        if (timeout.matches()) {
+            return new Timeout(name, timeout.group(1), timeout.group(2), TieringPolicy.parseDuration(timeout.group(3)));
+        }
+        throw new IllegalArgumentException(
+                "Unknown rule '" + rule + "', use 'COUNT STATUS within DURATION' or 'STATUS without STATUS for DURATION'");
+    }
+}
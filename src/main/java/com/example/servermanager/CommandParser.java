@@ -3,6 +3,8 @@ package com.example.servermanager;
 import lombok.Getter;
 import org.apache.commons.cli.*;
 
+import java.util.List;
+
 @Getter
 public class CommandParser {
     private String command;
@@ -41,6 +43,41 @@ public class CommandParser {
                 .hasArg()
                 .desc("Filter by status")
                 .build());
+
+        options.addOption(Option.builder("limit")
+                .longOpt("limit")
+                .hasArg()
+                .desc("Maximum number of events to show")
+                .build());
+
+        options.addOption(Option.builder("out")
+                .longOpt("out")
+                .hasArg()
+                .desc("Output file")
+                .build());
+
+        options.addOption(Option.builder("format")
+                .longOpt("format")
+                .hasArg()
+                .desc("Output format (csv/ndjson)")
+                .build());
+
+        options.addOption(Option.builder("servers")
+                .longOpt("servers")
+                .hasArg()
+                .desc("Number of simulated servers")
+                .build());
+
+        options.addOption(Option.builder("cycles")
+                .longOpt("cycles")
+                .hasArg()
+                .desc("Number of up/down cycles per simulated server")
+                .build());
+
+        options.addOption(Option.builder("follow")
+                .longOpt("follow")
+                .desc("Print new events as they are logged")
+                .build());
     }
 
     public CommandParser(String input) {
@@ -77,4 +114,15 @@ public class CommandParser {
         return cmdLine.getOptionValue(key);
     }
 
+    /**
+     * Returns the arguments that are not options, e.g. the files of {@code import a.log b.log}.
+     */
+    public List<String> getArgs() {
+        return cmdLine == null ? List.of() : cmdLine.getArgList();
+    }
+
+    public boolean hasParam(String key) {
+        return cmdLine != null && cmdLine.hasOption(key);
+    }
+
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.example.servermanager;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
@@ -21,6 +22,21 @@ public record Event(String status, LocalDateTime timestamp) {
         return new Event(parts[0], LocalDateTime.parse(parts[1], formatter));
     }
 
+    /**
+     * Parses a raw log line, returning null for blank or malformed lines instead of throwing.
+     */
+    static Event fromCSV(byte[] bytes, int offset, int length) {
+        String line = new String(bytes, offset, length, StandardCharsets.UTF_8).strip();
+        if (line.isEmpty()) {
+            return null;
+        }
+        try {
+            return fromCSV(line);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
     @Override
     public String toString() {
         return "Event{" +
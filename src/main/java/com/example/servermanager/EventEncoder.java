@@ -0,0 +1,154 @@
+package com.example.servermanager;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+/**
+ * Encodes events as log lines into a reusable buffer without allocating per event.
+ * <p>
+ * The output is byte for byte what {@link Event#toCSV()} followed by a newline produces: the status, a comma and
+ * the timestamp in {@link java.time.format.DateTimeFormatter#ISO_LOCAL_DATE_TIME} form, which always includes the
+ * seconds and prints the fraction of a second only when it is not zero, without trailing zeros. Statuses with
+ * non-ASCII characters fall back to {@link String#getBytes}.
+ * <p>
+ * Not thread-safe, every writer owns its encoder.
+ */
+public class EventEncoder {
+    // '+' and up to 9 year digits, "-MM-ddTHH:mm:ss", '.' and 9 fraction digits, the comma and the newline
+    private static final int MAX_FIXED_BYTES = 10 + 15 + 10 + 2;
+    private static final int MAX_BYTES_PER_CHAR = 3;
+
+    private final ByteBuffer buffer;
+
+    public EventEncoder(int capacity) {
+        this.buffer = ByteBuffer.allocate(capacity);
+    }
+
+    /**
+     * The buffer encoded lines are appended to, between position 0 and its current position.
+     */
+    public ByteBuffer buffer() {
+        return buffer;
+    }
+
+    /**
+     * Appends the log line of {@code event} to the buffer.
+     *
+     * @return false, leaving the buffer unchanged, if the line might not fit into the remaining space
+     */
+    public boolean encode(Event event) {
+        String status = event.status();
+        if (buffer.remaining() < status.length() * MAX_BYTES_PER_CHAR + MAX_FIXED_BYTES) {
+            return false;
+        }
+        byte[] bytes = buffer.array();
+        int position = buffer.arrayOffset() + buffer.position();
+        position = putStatus(bytes, position, status);
+        bytes[position++] = ',';
+        position = putTimestamp(bytes, position, event.timestamp());
+        bytes[position++] = '\n';
+        buffer.position(position - buffer.arrayOffset());
+        return true;
+    }
+
+    /**
+     * Appends the log line of {@code event}, first writing the buffer to {@code channel} if it is full.
+     */
+    public void append(Event event, WritableByteChannel channel) throws IOException {
+        if (encode(event)) {
+            return;
+        }
+        flush(channel);
+        if (!encode(event)) {
+            // Longer than the whole buffer
+            write(ByteBuffer.wrap((event.toCSV() + "\n").getBytes(StandardCharsets.UTF_8)), channel);
+        }
+    }
+
+    /**
+     * Writes the buffered lines to {@code channel} and clears the buffer.
+     */
+    public void flush(WritableByteChannel channel) throws IOException {
+        buffer.flip();
+        try {
+            write(buffer, channel);
+        } finally {
+            buffer.clear();
+        }
+    }
+
+    private static void write(ByteBuffer source, WritableByteChannel channel) throws IOException {
+        while (source.hasRemaining()) {
+            channel.write(source);
+        }
+    }
+
+    private static int putStatus(byte[] bytes, int position, String status) {
+        int length = status.length();
+        for (int i = 0; i < length; i++) {
+            char c = status.charAt(i);
+            if (c >= 0x80) {
+                byte[] encoded = status.getBytes(StandardCharsets.UTF_8);
+                System.arraycopy(encoded, 0, bytes, position - i, encoded.length);
+                return position - i + encoded.length;
+            }
+            bytes[position++] = (byte) c;
+        }
+        return position;
+    }
+
+    private static int putTimestamp(byte[] bytes, int position, LocalDateTime timestamp) {
+        int year = timestamp.getYear();
+        if (year > 9999) {
+            bytes[position++] = '+';
+        } else if (year < 0) {
+            bytes[position++] = '-';
+        }
+        int absYear = Math.abs(year);
+        position = putDigits(bytes, position, absYear, Math.max(4, digitCount(absYear)));
+        bytes[position++] = '-';
+        position = putDigits(bytes, position, timestamp.getMonthValue(), 2);
+        bytes[position++] = '-';
+        position = putDigits(bytes, position, timestamp.getDayOfMonth(), 2);
+        bytes[position++] = 'T';
+        position = putDigits(bytes, position, timestamp.getHour(), 2);
+        bytes[position++] = ':';
+        position = putDigits(bytes, position, timestamp.getMinute(), 2);
+        bytes[position++] = ':';
+        position = putDigits(bytes, position, timestamp.getSecond(), 2);
+        int nano = timestamp.getNano();
+        if (nano != 0) {
+            int digits = 9;
+            while (nano % 10 == 0) {
+                nano /= 10;
+                digits--;
+            }
+            bytes[position++] = '.';
+            position = putDigits(bytes, position, nano, digits);
+        }
+        return position;
+    }
+
+    /**
+     * Writes {@code value} as exactly {@code width} digits, padded with leading zeros.
+     */
+    private static int putDigits(byte[] bytes, int position, int value, int width) {
+        for (int i = position + width - 1; i >= position; i--) {
+            bytes[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        return position + width;
+    }
+
+    private static int digitCount(int value) {
+        int digits = 1;
+        while (value >= 10) {
+            value /= 10;
+            digits++;
+        }
+        return digits;
+    }
+}
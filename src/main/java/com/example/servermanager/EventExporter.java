@@ -0,0 +1,205 @@
+package com.example.servermanager;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+
+/**
+ * Exports a time range of the event log to a file.
+ * <p>
+ * The log is appended in chronological order, so the range is located with a binary search over byte
+ * offsets. The range is then streamed line by line through a buffered writer. Every line is parsed and written
+ * back in canonical form whatever the format and filter, so lines the log readers would not accept (malformed,
+ * CRLF, uppercase statuses) are skipped or normalized the same way in every export.
+ */
+public class EventExporter {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    public enum Format {
+        CSV, NDJSON;
+
+        /**
+         * Returns the format for its case-insensitive name, or null if there is none.
+         */
+        public static Format of(String name) {
+            for (Format format : values()) {
+                if (format.name().equalsIgnoreCase(name)) {
+                    return format;
+                }
+            }
+            return null;
+        }
+    }
+
+    private final File eventFile;
+
+    public EventExporter(File eventFile) {
+        this.eventFile = eventFile;
+    }
+
+    /**
+     * Writes the events within {@code [from, to]} (bounds are optional) with the given status (if not null)
+     * to {@code out}, replacing its content.
+     *
+     * @return the number of bytes written
+     */
+    public long export(LocalDateTime from, LocalDateTime to, String status, Format format, Path out) throws IOException {
+        try (FileChannel source = FileChannel.open(eventFile.toPath(), StandardOpenOption.READ)) {
+            long size = source.size();
+            long start = from == null ? 0 : lowerBound(source, size, from, false);
+            long end = to == null ? size : lowerBound(source, size, to, true);
+            if (end <= start) {
+                Files.write(out, new byte[0]);
+                return 0;
+            }
+            String wanted = status == null ? null : status.toLowerCase();
+            try (OutputStream output = new BufferedOutputStream(Files.newOutputStream(out), BUFFER_SIZE)) {
+                return encode(source, start, end, wanted, format, output);
+            }
+        }
+    }
+
+    private static long encode(FileChannel source, long start, long end, String status, Format format,
+                               OutputStream output) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        byte[] line = new byte[128];
+        int lineLength = 0;
+        long written = 0;
+        long position = start;
+        while (position < end) {
+            buffer.clear().limit((int) Math.min(BUFFER_SIZE, end - position));
+            int read = source.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            position += read;
+            byte[] bytes = buffer.array();
+            for (int i = 0; i < read; i++) {
+                if (bytes[i] != '\n') {
+                    if (lineLength == line.length) {
+                        line = Arrays.copyOf(line, line.length * 2);
+                    }
+                    line[lineLength++] = bytes[i];
+                    continue;
+                }
+                written += encodeLine(line, lineLength, status, format, output);
+                lineLength = 0;
+            }
+        }
+        if (lineLength > 0) {
+            written += encodeLine(line, lineLength, status, format, output);
+        }
+        return written;
+    }
+
+    /**
+     * Writes one log line in canonical form, skipping it if it is malformed or has another status.
+     */
+    private static int encodeLine(byte[] line, int length, String status, Format format,
+                                  OutputStream output) throws IOException {
+        Event event = Event.fromCSV(line, 0, length);
+        if (event == null || status != null && !event.status().equals(status)) {
+            return 0;
+        }
+        String encoded = format == Format.CSV
+                ? event.toCSV() + "\n"
+                : "{\"status\":" + jsonString(event.status())
+                        + ",\"timestamp\":" + jsonString(event.timestamp().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME)) + "}\n";
+        byte[] bytes = encoded.getBytes(StandardCharsets.UTF_8);
+        output.write(bytes);
+        return bytes.length;
+    }
+
+    private static String jsonString(String value) {
+        StringBuilder json = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+                }
+            }
+        }
+        return json.append('"').toString();
+    }
+
+    /**
+     * Returns the offset of the first line whose timestamp is at or after {@code bound} (or strictly after it
+     * if {@code exclusive}), or {@code size} if there is none. Lines that cannot be parsed sort before any bound.
+     */
+    static long lowerBound(FileChannel channel, long size, LocalDateTime bound, boolean exclusive) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        long lo = 0;
+        long hi = size;
+        while (lo < hi) {
+            long mid = (lo + hi) >>> 1;
+            long lineStart = mid == 0 ? 0 : nextLineStart(channel, buffer, mid - 1, size);
+            if (lineStart >= hi) {
+                // No line starts in [mid, hi), look at the line starting at lo instead
+                lineStart = lo;
+            }
+            long lineEnd = nextLineStart(channel, buffer, lineStart, size);
+            LocalDateTime timestamp = timestampAt(channel, lineStart, lineEnd);
+            boolean after = timestamp != null
+                    && (exclusive ? timestamp.isAfter(bound) : !timestamp.isBefore(bound));
+            if (after) {
+                hi = lineStart;
+            } else {
+                lo = lineEnd;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Returns the offset just after the first line break at or after {@code position}, or {@code size}.
+     */
+    private static long nextLineStart(FileChannel channel, ByteBuffer buffer, long position, long size)
+            throws IOException {
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                return size;
+            }
+            byte[] bytes = buffer.array();
+            for (int i = 0; i < read; i++) {
+                if (bytes[i] == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    private static LocalDateTime timestampAt(FileChannel channel, long start, long end) throws IOException {
+        ByteBuffer line = ByteBuffer.allocate((int) (end - start));
+        while (line.hasRemaining()) {
+            if (channel.read(line, start + line.position()) <= 0) {
+                break;
+            }
+        }
+        Event event = Event.fromCSV(line.array(), 0, line.position());
+        return event == null ? null : event.timestamp();
+    }
+}
@@ -0,0 +1,260 @@
+package com.example.servermanager;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.LocalDateTime;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+
+/**
+ * Tails the event log and delivers newly appended events to a consumer.
+ * <p>
+ * The follower keeps the byte offset it has read up to and only reads bytes appended after it.
+ * Reads are triggered by appends through the in-process {@link EventLogger}, by {@link WatchService}
+ * notifications for writes from other processes, and by a periodic offset check for file systems
+ * where the watch service is unreliable (e.g. Docker volumes).
+ * <p>
+ * When the log is replaced by a rewrite (see {@link EventLogger#replaceLog}) the follower reopens it and reads it
+ * from the beginning, skipping the events up to the last one it had read. This relies on the log being in
+ * chronological order.
+ */
+@Slf4j
+public class EventFollower implements Closeable {
+    private static final long POLL_INTERVAL_MS = 1000;
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final EventLogger eventLogger;
+    private final Path path;
+    private final String statusFilter;
+    private final Consumer<Event> consumer;
+    private final Consumer<Event> listener = event -> wakeup();
+    private final Semaphore signal = new Semaphore(0);
+    private final ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+    private final ByteArrayOutputStream partialLine = new ByteArrayOutputStream();
+    private volatile boolean running;
+    private long offset;
+    private Object fileKey;
+    // Timestamp of the last line read and how many lines in a row had it, to resume after the log is replaced
+    private LocalDateTime lastRead;
+    private int readAtLast;
+    private LocalDateTime resumeAfter;
+    private int resumeSkip;
+    private Thread reader;
+    private Thread watcher;
+    private WatchService watchService;
+
+    public EventFollower(EventLogger eventLogger, String statusFilter, Consumer<Event> consumer) {
+        this.eventLogger = eventLogger;
+        this.path = eventLogger.getEventFile().toPath().toAbsolutePath();
+        this.statusFilter = statusFilter == null ? null : statusFilter.toLowerCase();
+        this.consumer = consumer;
+    }
+
+    /**
+     * Starts following from the current end of the log.
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        offset = path.toFile().length();
+        Event last = eventLogger.getLastEvent();
+        lastRead = last == null ? null : last.timestamp();
+        readAtLast = 1;
+        eventLogger.addListener(listener);
+        startWatcher();
+        reader = new Thread(this::readLoop, "event-follower");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /**
+     * Requests an immediate check for newly appended bytes.
+     */
+    public void wakeup() {
+        signal.release();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        eventLogger.removeListener(listener);
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                log.debug("Error closing watch service", e);
+            }
+        }
+        wakeup();
+        try {
+            reader.join(POLL_INTERVAL_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void startWatcher() {
+        Path dir = path.getParent();
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            dir.register(watchService, ENTRY_CREATE, ENTRY_MODIFY);
+        } catch (IOException | UnsupportedOperationException e) {
+            log.debug("Watch service unavailable, relying on polling", e);
+            watchService = null;
+            return;
+        }
+        watcher = new Thread(this::watchLoop, "event-follower-watch");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    private void watchLoop() {
+        Path fileName = path.getFileName();
+        try {
+            while (running) {
+                WatchKey key = watchService.take();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (fileName.equals(event.context())) {
+                        wakeup();
+                    }
+                }
+                if (!key.reset()) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // Follower closed
+        }
+    }
+
+    private void readLoop() {
+        FileChannel channel = null;
+        try {
+            while (running) {
+                // Read the key before opening, a replacement in between is then noticed on the next check
+                Object key = Files.readAttributes(path, BasicFileAttributes.class).fileKey();
+                if (channel == null || (key != null && !key.equals(fileKey))) {
+                    if (channel != null) {
+                        channel.close();
+                        resume();
+                    }
+                    fileKey = key;
+                    channel = FileChannel.open(path, StandardOpenOption.READ);
+                }
+                readAppended(channel);
+                signal.tryAcquire(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                signal.drainPermits();
+            }
+        } catch (IOException e) {
+            System.err.println("Error following events: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    log.debug("Error closing event file", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Starts over from the beginning of a replaced or truncated log, skipping the lines that were already read.
+     */
+    private void resume() {
+        offset = 0;
+        partialLine.reset();
+        resumeAfter = lastRead;
+        resumeSkip = readAtLast;
+    }
+
+    private void readAppended(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size < offset) {
+            resume();
+        }
+        while (offset < size) {
+            buffer.clear();
+            int read = channel.read(buffer, offset);
+            if (read <= 0) {
+                break;
+            }
+            offset += read;
+            buffer.flip();
+            splitLines();
+        }
+    }
+
+    private void splitLines() {
+        byte[] bytes = buffer.array();
+        int start = 0;
+        int limit = buffer.limit();
+        for (int i = 0; i < limit; i++) {
+            if (bytes[i] == '\n') {
+                partialLine.write(bytes, start, i - start);
+                deliver(partialLine.toString(StandardCharsets.UTF_8).strip());
+                partialLine.reset();
+                start = i + 1;
+            }
+        }
+        partialLine.write(bytes, start, limit - start);
+    }
+
+    private void deliver(String line) {
+        Event event;
+        try {
+            event = Event.fromCSV(line);
+        } catch (RuntimeException e) {
+            log.debug("Skipping malformed line: {}", line);
+            return;
+        }
+        if (event == null) {
+            return;
+        }
+        if (resumeAfter != null) {
+            int comparison = event.timestamp().compareTo(resumeAfter);
+            if (comparison < 0 || (comparison == 0 && resumeSkip-- > 0)) {
+                return;
+            }
+            resumeAfter = null;
+        }
+        if (event.timestamp().equals(lastRead)) {
+            readAtLast++;
+        } else {
+            lastRead = event.timestamp();
+            readAtLast = 1;
+        }
+        if (statusFilter != null && !statusFilter.equals(event.status())) {
+            return;
+        }
+        consumer.accept(event);
+    }
+}
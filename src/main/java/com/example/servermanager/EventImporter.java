@@ -0,0 +1,373 @@
+package com.example.servermanager;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Imports event logs from other hosts into the local log.
+ * <p>
+ * Every input file is split into chunks at line boundaries and the chunks are parsed and validated in
+ * parallel. Each chunk yields a run of events sorted by timestamp, which is spilled to a temporary file, so that the
+ * heap only holds the chunks being parsed however large the inputs are. The runs are combined with a k-way merge
+ * that reads one event per run at a time and appended through {@link EventLogger#logEvents} in large batches.
+ * Imports that reach back before the end of the log are merged into it with {@link EventLogger#mergeEvents} to
+ * keep it in chronological order.
+ */
+public class EventImporter {
+    private static final int CHUNK_SIZE = 4 * 1024 * 1024;
+    private static final int BATCH_SIZE = 10_000;
+    private static final int MAX_REPORTED_ERRORS = 100;
+    private static final String RUN_PREFIX = "servermanager-import";
+    private static final String RUN_SUFFIX = ".run";
+    private static final Comparator<Event> BY_TIMESTAMP = Comparator.comparing(Event::timestamp);
+
+    private final EventLogger eventLogger;
+    private final int threads;
+
+    public EventImporter(EventLogger eventLogger) {
+        this(eventLogger, Runtime.getRuntime().availableProcessors());
+    }
+
+    public EventImporter(EventLogger eventLogger, int threads) {
+        this.eventLogger = eventLogger;
+        this.threads = threads;
+    }
+
+    /**
+     * A rejected input line, {@code line} is 1-based and {@code offset} is the byte offset of the line start.
+     */
+    public record LineError(Path file, long line, long offset, String message) {
+        @Override
+        public String toString() {
+            return file + ":" + line + " (offset " + offset + "): " + message;
+        }
+    }
+
+    /**
+     * Outcome of an import. {@code errors} holds the first rejected lines, {@code rejected} counts all of them.
+     * {@code olderThanLog} counts imported events older than the last event already in the log, which were merged
+     * into the log at their timestamp position. {@code summarized} counts the events that were skipped because
+     * their range of the history has already been replaced by summaries (see {@link TieringJob}).
+     */
+    public record Report(long imported, long rejected, long olderThanLog, long summarized, List<LineError> errors) {
+    }
+
+    public Report importFiles(List<Path> files) throws IOException, InterruptedException {
+        List<Chunk> chunks = new ArrayList<>();
+        for (Path file : files) {
+            chunks.addAll(split(file));
+        }
+        try {
+            parse(chunks);
+
+            List<LineError> errors = new ArrayList<>();
+            long rejected = 0;
+            long firstLine = 1;
+            for (Chunk chunk : chunks) {
+                if (chunk.start == 0) {
+                    firstLine = 1;
+                }
+                for (LineError error : chunk.errors) {
+                    if (errors.size() < MAX_REPORTED_ERRORS) {
+                        errors.add(new LineError(error.file(), firstLine + error.line(), error.offset(),
+                                error.message()));
+                    }
+                }
+                rejected += chunk.rejected;
+                firstLine += chunk.lines;
+            }
+
+            Event last = eventLogger.getLastEvent();
+            long[] counts = merge(chunks, last == null ? null : last.timestamp());
+            return new Report(counts[0], rejected, counts[1], counts[2], errors);
+        } finally {
+            for (Chunk chunk : chunks) {
+                chunk.deleteRun();
+            }
+        }
+    }
+
+    /**
+     * Parses the chunks in parallel, each into a sorted run on disk.
+     */
+    private void parse(List<Chunk> chunks) throws IOException, InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, chunks.size())));
+        try {
+            List<Future<Chunk>> parsed = new ArrayList<>();
+            for (Chunk chunk : chunks) {
+                parsed.add(executor.submit(chunk::parse));
+            }
+            for (Future<Chunk> future : parsed) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IllegalStateException("Import failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+            // Chunks still running could otherwise spill runs after they have been deleted
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+    }
+
+    /**
+     * Merges the sorted runs of all chunks and appends them in batches. If the oldest event is older than
+     * {@code logEnd}, all events are merged into the log at their timestamp position instead, see
+     * {@link EventLogger#mergeEvents}.
+     *
+     * @return the number of imported events, how many of them are older than {@code logEnd} and the number of
+     * skipped events
+     * @throws IOException if writing failed, the import stops at the failed batch
+     */
+    private long[] merge(List<Chunk> chunks, LocalDateTime logEnd) throws IOException {
+        PriorityQueue<Cursor> heads = new PriorityQueue<>(
+                Comparator.comparing((Cursor cursor) -> cursor.current().timestamp()).thenComparingInt(c -> c.order));
+        List<Cursor> cursors = new ArrayList<>();
+        try {
+            for (int i = 0; i < chunks.size(); i++) {
+                if (chunks.get(i).run != null) {
+                    Cursor cursor = new Cursor(chunks.get(i).run, i);
+                    cursors.add(cursor);
+                    if (cursor.advance()) {
+                        heads.add(cursor);
+                    }
+                }
+            }
+            return merge(heads, logEnd);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            for (Cursor cursor : cursors) {
+                cursor.close();
+            }
+        }
+    }
+
+    private long[] merge(PriorityQueue<Cursor> heads, LocalDateTime logEnd) throws IOException {
+        long[] taken = new long[2];
+        Iterator<Event> merged = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return !heads.isEmpty();
+            }
+
+            @Override
+            public Event next() {
+                Cursor cursor = heads.poll();
+                Event event = cursor.current();
+                try {
+                    if (cursor.advance()) {
+                        heads.add(cursor);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                taken[0]++;
+                if (logEnd != null && event.timestamp().isBefore(logEnd)) {
+                    taken[1]++;
+                }
+                return event;
+            }
+        };
+        if (logEnd != null && !heads.isEmpty() && heads.peek().current().timestamp().isBefore(logEnd)) {
+            long imported = eventLogger.mergeEvents(merged);
+            long skipped = taken[0] - imported;
+            return new long[]{imported, taken[1] - skipped, skipped};
+        }
+        List<Event> batch = new ArrayList<>(BATCH_SIZE);
+        long imported = 0;
+        while (merged.hasNext()) {
+            batch.add(merged.next());
+            if (batch.size() == BATCH_SIZE || !merged.hasNext()) {
+                try {
+                    eventLogger.logEvents(batch);
+                } catch (IOException e) {
+                    throw new IOException(e.getMessage() + ", " + imported + " events were imported before the failure", e);
+                }
+                imported += batch.size();
+                batch.clear();
+            }
+        }
+        return new long[]{imported, taken[1], 0};
+    }
+
+    /**
+     * Splits a file into chunks of about {@link #CHUNK_SIZE} bytes that end at line breaks.
+     */
+    private static List<Chunk> split(Path file) throws IOException {
+        List<Chunk> chunks = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer probe = ByteBuffer.allocate(4096);
+            long start = 0;
+            while (start < size) {
+                long end = Math.min(size, start + CHUNK_SIZE);
+                while (end < size) {
+                    probe.clear();
+                    int read = channel.read(probe, end);
+                    int newline = -1;
+                    for (int i = 0; i < read && newline < 0; i++) {
+                        if (probe.get(i) == '\n') {
+                            newline = i;
+                        }
+                    }
+                    if (newline >= 0) {
+                        end += newline + 1;
+                        break;
+                    }
+                    end = read <= 0 ? size : Math.min(size, end + read);
+                }
+                chunks.add(new Chunk(file, start, end));
+                start = end;
+            }
+        }
+        return chunks;
+    }
+
+    private static final class Chunk {
+        private final Path file;
+        private final long start;
+        private final long end;
+        private final List<LineError> errors = new ArrayList<>();
+        private long rejected;
+        private long lines;
+        // Sorted run of the valid events, null if there are none
+        private Path run;
+
+        private Chunk(Path file, long start, long end) {
+            this.file = file;
+            this.start = start;
+            this.end = end;
+        }
+
+        private Chunk parse() throws IOException {
+            byte[] bytes = new byte[(int) (end - start)];
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, start + buffer.position()) <= 0) {
+                        throw new IOException("Unexpected end of " + file);
+                    }
+                }
+            }
+            List<Event> events = new ArrayList<>();
+            int lineStart = 0;
+            boolean sorted = true;
+            for (int i = 0; i <= bytes.length; i++) {
+                if (i < bytes.length && bytes[i] != '\n') {
+                    continue;
+                }
+                if (i > lineStart || i < bytes.length) {
+                    Event event = parseLine(bytes, lineStart, i - lineStart);
+                    if (event != null) {
+                        sorted &= events.isEmpty() || !event.timestamp().isBefore(events.getLast().timestamp());
+                        events.add(event);
+                    }
+                    lines++;
+                }
+                lineStart = i + 1;
+            }
+            if (!sorted) {
+                events.sort(BY_TIMESTAMP);
+            }
+            if (!events.isEmpty()) {
+                spill(events);
+            }
+            return this;
+        }
+
+        private void spill(List<Event> events) throws IOException {
+            run = Files.createTempFile(RUN_PREFIX, RUN_SUFFIX);
+            try (BufferedWriter writer = Files.newBufferedWriter(run, StandardCharsets.UTF_8)) {
+                for (Event event : events) {
+                    writer.write(event.toCSV());
+                    writer.newLine();
+                }
+            }
+        }
+
+        private void deleteRun() throws IOException {
+            if (run != null) {
+                Files.deleteIfExists(run);
+                run = null;
+            }
+        }
+
+        private Event parseLine(byte[] bytes, int offset, int length) {
+            String line = new String(bytes, offset, length, StandardCharsets.UTF_8).strip();
+            if (line.isEmpty()) {
+                return null;
+            }
+            String[] parts = line.split(",");
+            String error;
+            if (parts.length != 2) {
+                error = "expected status,timestamp";
+            } else if (ServerLifecycle.State.of(parts[0]) == null) {
+                error = "unknown status '" + parts[0] + "'";
+            } else {
+                try {
+                    return Event.fromCSV(line);
+                } catch (DateTimeParseException e) {
+                    error = "invalid timestamp '" + parts[1] + "'";
+                }
+            }
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new LineError(file, lines, start + offset, error));
+            }
+            rejected++;
+            return null;
+        }
+    }
+
+    /**
+     * Reads a spilled run one event at a time.
+     */
+    private static final class Cursor implements Closeable {
+        private final BufferedReader reader;
+        private final int order;
+        private Event current;
+
+        private Cursor(Path run, int order) throws IOException {
+            this.reader = Files.newBufferedReader(run, StandardCharsets.UTF_8);
+            this.order = order;
+        }
+
+        private Event current() {
+            return current;
+        }
+
+        private boolean advance() throws IOException {
+            String line = reader.readLine();
+            current = line == null ? null : Event.fromCSV(line);
+            return current != null;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+}
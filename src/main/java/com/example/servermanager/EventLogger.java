@@ -1,19 +1,54 @@
 package com.example.servermanager;
 
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 @Slf4j
-public class EventLogger {
+public class EventLogger implements Closeable {
+    static final int DEFAULT_SORT_BUDGET = 100_000;
+    private static final int LAST_EVENT_BLOCK_SIZE = 4096;
+    private static final int ENCODER_BUFFER_SIZE = 64 * 1024;
+    private static final String MERGE_SUFFIX = ".merge";
+
+    @Getter
     private final File eventFile;
+    private final List<Consumer<Event>> listeners = new CopyOnWriteArrayList<>();
+    private final List<Consumer<Event>> liveListeners = new CopyOnWriteArrayList<>();
+    private final StatusIndex statusIndex;
+    private final HistoryCache historyCache;
+    private final StateTimeline stateTimeline;
+    private final SummaryStore summaryStore;
+    private volatile int sortBudget = DEFAULT_SORT_BUDGET;
+    private final EventEncoder encoder = new EventEncoder(ENCODER_BUFFER_SIZE);
+    private FileChannel appendChannel;
+    private volatile OffHeapEventStore offHeapStore;
 
     public EventLogger(String filename) {
         this.eventFile = new File(filename);
+        this.statusIndex = new StatusIndex(eventFile.toPath());
+        this.historyCache = new HistoryCache(eventFile.toPath(), this,
+                HistoryCache.DEFAULT_MAX_ENTRIES, HistoryCache.DEFAULT_MAX_BYTES);
+        this.stateTimeline = new StateTimeline(eventFile.toPath());
+        this.summaryStore = new SummaryStore(eventFile.toPath());
         try {
             if (!eventFile.exists()) {
                 boolean result = eventFile.createNewFile();
@@ -25,16 +60,278 @@ public class EventLogger {
     }
 
     public synchronized void logEvent(Event event) {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(eventFile, true))) {
-            writer.write(event.toCSV());
-            writer.newLine();
+        try {
+            FileChannel channel = appendChannel();
+            encoder.append(event, channel);
+            encoder.flush(channel);
         } catch (IOException e) {
+            closeAppendChannel();
             System.err.println("Error writing event: " + e.getMessage());
+            return;
+        }
+        notifyListeners(event, true);
+    }
+
+    /**
+     * Appends a batch of events, writing them in buffer-sized chunks.
+     *
+     * @throws IOException if the batch could not be written, part of it may have been appended
+     */
+    public synchronized void logEvents(List<Event> events) throws IOException {
+        try {
+            FileChannel channel = appendChannel();
+            for (Event event : events) {
+                encoder.append(event, channel);
+            }
+            encoder.flush(channel);
+        } catch (IOException e) {
+            closeAppendChannel();
+            throw e;
+        }
+        if (!listeners.isEmpty()) {
+            events.forEach(event -> notifyListeners(event, false));
+        }
+    }
+
+    SummaryStore summaryStore() {
+        return summaryStore;
+    }
+
+    int getSortBudget() {
+        return sortBudget;
+    }
+
+    /**
+     * Replaces the log with {@code rewritten}, a rewrite of its first {@code rewrittenLength} bytes, after copying
+     * the lines appended since to it.
+     */
+    synchronized void replaceLog(Path rewritten, long rewrittenLength) throws IOException {
+        closeAppendChannel();
+        try (FileChannel source = FileChannel.open(eventFile.toPath(), StandardOpenOption.READ);
+             FileChannel target = FileChannel.open(rewritten, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            long position = rewrittenLength;
+            long size = source.size();
+            while (position < size) {
+                position += source.transferTo(position, size - position, target);
+            }
+        }
+        Files.move(rewritten, eventFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        invalidateLogViews();
+    }
+
+    /**
+     * Merges {@code events}, sorted by timestamp, into the log at their timestamp position, after logged events with
+     * the same timestamp. Appending events older than the end of the log would break every reader that relies on
+     * its chronological order, so the log is rewritten into a new file that replaces it instead. Listeners are not
+     * called for merged events.
+     * <p>
+     * Events older than the {@link SummaryStore#horizon()} are skipped, their range has already been replaced by
+     * summaries. Also holds the lock of the summary store, which {@link TieringJob} holds from scanning the log
+     * until its own rewrite is swapped in.
+     *
+     * @return the number of merged events
+     */
+    long mergeEvents(Iterator<Event> events) throws IOException {
+        synchronized (summaryStore) {
+            synchronized (this) {
+                Path logPath = eventFile.toPath();
+                Path merged = logPath.resolveSibling(logPath.getFileName() + MERGE_SUFFIX);
+                LocalDateTime horizon = summaryStore.horizon();
+                long count = 0;
+                try {
+                    try (BufferedReader reader = Files.newBufferedReader(logPath, StandardCharsets.UTF_8);
+                         BufferedWriter writer = Files.newBufferedWriter(merged, StandardCharsets.UTF_8)) {
+                        Event next = next(events, horizon);
+                        String line;
+                        while ((line = reader.readLine()) != null) {
+                            Event logged = parseLenient(line);
+                            while (next != null && logged != null && next.timestamp().isBefore(logged.timestamp())) {
+                                writer.write(next.toCSV());
+                                writer.write('\n');
+                                count++;
+                                next = next(events, horizon);
+                            }
+                            writer.write(line);
+                            writer.write('\n');
+                        }
+                        while (next != null) {
+                            writer.write(next.toCSV());
+                            writer.write('\n');
+                            count++;
+                            next = next(events, horizon);
+                        }
+                    }
+                    closeAppendChannel();
+                    Files.move(merged, logPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } finally {
+                    Files.deleteIfExists(merged);
+                }
+                invalidateLogViews();
+                return count;
+            }
+        }
+    }
+
+    private static Event next(Iterator<Event> events, LocalDateTime horizon) {
+        while (events.hasNext()) {
+            Event event = events.next();
+            if (horizon == null || !event.timestamp().isBefore(horizon)) {
+                return event;
+            }
+        }
+        return null;
+    }
+
+    private static Event parseLenient(String line) {
+        try {
+            return Event.fromCSV(line.strip());
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Drops everything derived from the log after it was replaced by a rewrite.
+     */
+    private void invalidateLogViews() throws IOException {
+        statusIndex.invalidate();
+        historyCache.clear();
+        stateTimeline.invalidate();
+        if (offHeapStore != null) {
+            offHeapStore.invalidate();
+        }
+    }
+
+    /**
+     * Answers queries from an {@link OffHeapEventStore} instead of the log and the {@link HistoryCache}, so that the
+     * heap does not grow with the history. Disabling it unmaps and deletes the store.
+     */
+    public synchronized void setOffHeapStore(boolean enabled) throws IOException {
+        if (enabled == (offHeapStore != null)) {
+            return;
+        }
+        if (enabled) {
+            offHeapStore = new OffHeapEventStore(eventFile.toPath());
+        } else {
+            OffHeapEventStore store = offHeapStore;
+            offHeapStore = null;
+            store.close();
+        }
+    }
+
+    /**
+     * Closes the channel events are appended through and the off-heap store. Logging after closing reopens the
+     * channel.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        closeAppendChannel();
+        setOffHeapStore(false);
+    }
+
+    /**
+     * Returns the channel events are appended through. It stays open between writes and is reopened when the log
+     * file has been deleted.
+     */
+    private FileChannel appendChannel() throws IOException {
+        if (appendChannel == null || !appendChannel.isOpen() || !eventFile.exists()) {
+            closeAppendChannel();
+            appendChannel = FileChannel.open(eventFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        }
+        return appendChannel;
+    }
+
+    private void closeAppendChannel() {
+        encoder.buffer().clear();
+        if (appendChannel != null) {
+            try {
+                appendChannel.close();
+            } catch (IOException e) {
+                log.debug("Error closing event file", e);
+            }
+            appendChannel = null;
+        }
+    }
+
+    /**
+     * Appends raw log bytes received from a replication leader at {@code offset}, which must be the current end
+     * of the local log, and syncs them to disk before returning the new end offset.
+     */
+    public synchronized long appendReplicated(long offset, byte[] data, int length) throws IOException {
+        try (FileChannel channel = FileChannel.open(eventFile.toPath(), StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            if (size != offset) {
+                throw new IOException("Local log ends at " + size + " but replicated data starts at " + offset);
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(data, 0, length);
+            long position = offset;
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            channel.force(false);
+        }
+        if (!listeners.isEmpty()) {
+            int lineStart = 0;
+            for (int i = 0; i < length; i++) {
+                if (data[i] == '\n') {
+                    Event event = Event.fromCSV(data, lineStart, i - lineStart);
+                    if (event != null) {
+                        notifyListeners(event, false);
+                    }
+                    lineStart = i + 1;
+                }
+            }
+        }
+        return offset + length;
+    }
+
+    /**
+     * Registers a listener that is called after each event appended by this logger.
+     * Listeners run on the appending thread and must return quickly.
+     */
+    public void addListener(Consumer<Event> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Consumer<Event> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Registers a listener that is only called after events logged as they happen through {@link #logEvent}, not
+     * for history appended by imports or replication.
+     */
+    public void addLiveListener(Consumer<Event> listener) {
+        liveListeners.add(listener);
+    }
+
+    public void removeLiveListener(Consumer<Event> listener) {
+        liveListeners.remove(listener);
+    }
+
+    private void notifyListeners(Event event, boolean live) {
+        notify(listeners, event);
+        if (live) {
+            notify(liveListeners, event);
+        }
+    }
+
+    private static void notify(List<Consumer<Event>> listeners, Event event) {
+        for (Consumer<Event> listener : listeners) {
+            try {
+                listener.accept(event);
+            } catch (RuntimeException e) {
+                log.warn("Event listener failed", e);
+            }
         }
     }
 
     public synchronized List<Event> getAllEvents() {
         List<Event> events = new ArrayList<>();
+        if (fromOffHeapStore(new HistoryCache.Key(null, null, null), true, 0, events::add) >= 0) {
+            return events;
+        }
         try (BufferedReader reader = new BufferedReader(new FileReader(eventFile))) {
             String line;
             while ((line = reader.readLine()) != null) {
@@ -49,19 +346,422 @@ public class EventLogger {
         return events;
     }
 
+    /**
+     * Returns the most recently logged event, or null if there is none, reading only the end of the log.
+     */
+    public synchronized Event getLastEvent() {
+        OffHeapEventStore store = offHeapStore;
+        if (store != null) {
+            try {
+                return store.last();
+            } catch (IOException | IllegalStateException e) {
+                System.err.println("Error reading off-heap events: " + e.getMessage());
+            }
+        }
+        try (ReverseEventReader reader = new ReverseEventReader(eventFile, LAST_EVENT_BLOCK_SIZE)) {
+            return reader.hasNext() ? reader.next() : null;
+        } catch (IOException | IllegalStateException e) {
+            System.err.println("Error reading events: " + e.getMessage());
+            return null;
+        }
+    }
+
     public List<Event> filterEvents(String status, LocalDateTime from, LocalDateTime to, boolean asc) {
-        List<Event> events = getAllEvents();
-        if (status != null) {
-            String lowerStatus = status.toLowerCase();
-            events = events.stream().filter(e -> e.status().equals(lowerStatus)).collect(Collectors.toList());
+        return filterEvents(status, from, to, asc, 0);
+    }
+
+    /**
+     * Returns matching events ordered by timestamp, at most {@code limit} of them if {@code limit} is positive.
+     * <p>
+     * Newest-first queries read the log backwards with {@link ReverseEventReader} and stop as soon as the limit or
+     * the {@code from} bound is reached, as long as the log is in chronological order. Other queries, and all of
+     * them once the clock stepped back while logging, are answered through the {@link HistoryCache}. With the off-heap store enabled all queries it can
+     * answer are read from it.
+     */
+    public List<Event> filterEvents(String status, LocalDateTime from, LocalDateTime to, boolean asc, int limit) {
+        String lowerStatus = status == null ? null : status.toLowerCase();
+        List<Event> stored = new ArrayList<>();
+        if (fromOffHeapStore(new HistoryCache.Key(lowerStatus, from, to), asc, limit, stored::add) >= 0) {
+            return stored;
+        }
+        boolean filtered = lowerStatus != null || from != null || to != null;
+        if (!asc && (limit > 0 || !filtered) && isChronological()) {
+            List<Event> newest = new ArrayList<>();
+            if (readNewest(lowerStatus, from, to, limit, newest::add)) {
+                return newest;
+            }
+        }
+        List<Event> events = historyCache.get(new HistoryCache.Key(lowerStatus, from, to),
+                key -> queryEvents(key, Integer.MAX_VALUE));
+        return order(events, asc, limit);
+    }
+
+    /**
+     * Passes the events {@link #filterEvents} would return to {@code sink}, without holding more than the sort
+     * budget of them in memory. Results larger than the budget are sorted with an {@link ExternalEventSorter}.
+     *
+     * @return the number of events passed to {@code sink}
+     */
+    public long forEachEvent(String status, LocalDateTime from, LocalDateTime to, boolean asc, int limit,
+                             Consumer<Event> sink) {
+        String lowerStatus = status == null ? null : status.toLowerCase();
+        long stored = fromOffHeapStore(new HistoryCache.Key(lowerStatus, from, to), asc, limit, sink);
+        if (stored >= 0) {
+            return stored;
+        }
+        boolean filtered = lowerStatus != null || from != null || to != null;
+        if (!asc && (limit > 0 || !filtered) && isChronological()) {
+            // Newest first is the reverse log order, nothing to buffer
+            long[] count = new long[1];
+            readNewest(lowerStatus, from, to, limit, event -> {
+                sink.accept(event);
+                count[0]++;
+            });
+            return count[0];
+        }
+        int budget = sortBudget;
+        HistoryCache.Key key = new HistoryCache.Key(lowerStatus, from, to);
+        List<Event> events = historyCache.get(key, k -> queryEvents(k, budget));
+        if (events != null) {
+            events = order(events, asc, limit);
+            events.forEach(sink);
+            return events.size();
+        }
+        try {
+            return forEachSorted(key, asc, limit, sink);
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Error sorting events: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Passes the events matching {@code key} to {@code sink} in timestamp order, sorting them with an
+     * {@link ExternalEventSorter} within the sort budget.
+     */
+    private long forEachSorted(HistoryCache.Key key, boolean asc, int limit, Consumer<Event> sink)
+            throws IOException {
+        long stored = fromOffHeapStore(key, asc, limit, sink);
+        if (stored >= 0) {
+            return stored;
+        }
+        try (ExternalEventSorter sorter = new ExternalEventSorter(asc, sortBudget)) {
+            matchingEvents(key, event -> {
+                try {
+                    sorter.add(event);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return true;
+            });
+            return sorter.drain(limit, sink);
+        }
+    }
+
+    /**
+     * Returns the summaries that replaced old events (see {@link TieringJob}) overlapping {@code [from, to]} and
+     * matching {@code status}, in chronological order.
+     */
+    public List<PeriodSummary> summaries(String status, LocalDateTime from, LocalDateTime to) {
+        try {
+            return summaryStore.summaries().stream()
+                    .filter(summary -> summary.overlaps(from, to) && summary.matches(status))
+                    .toList();
+        } catch (IOException e) {
+            System.err.println("Error reading event summaries: " + e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * Summarizes {@code [from, to)} as a single period, taking the summarized range from the summaries (whole
+     * summaries that start within the range) and the rest from the raw events. Unset bounds default to the start of
+     * the history and {@code now}.
+     *
+     * @return the statistics, or null if there is no history in the range
+     */
+    public PeriodSummary stats(LocalDateTime from, LocalDateTime to, LocalDateTime now) {
+        List<PeriodSummary> summaries;
+        LocalDateTime horizon;
+        try {
+            summaries = summaryStore.summaries();
+            horizon = summaryStore.horizon();
+        } catch (IOException e) {
+            System.err.println("Error reading event summaries: " + e.getMessage());
+            return null;
+        }
+        LocalDateTime end = to == null || to.isAfter(now) ? now : to;
+        PeriodSummary total = null;
+        for (PeriodSummary summary : summaries) {
+            if ((from == null || !summary.start().isBefore(from)) && summary.start().isBefore(end)) {
+                total = total == null ? summary : total.merge(summary);
+            }
+        }
+        // Raw events before the horizon are already covered by the summaries
+        LocalDateTime rawFrom = horizon == null || (from != null && from.isAfter(horizon)) ? from : horizon;
+        ServerLifecycle.State initial = horizon == null ? null : summaries.getLast().endState();
+        List<PeriodSummary> raw = new ArrayList<>(1);
+        PeriodAccumulator[] accumulator = new PeriodAccumulator[1];
+        if (rawFrom != null && rawFrom.isBefore(end)) {
+            accumulator[0] = new PeriodAccumulator(rawFrom, Duration.between(rawFrom, end), initial, raw::add);
+        }
+        if (rawFrom == null || accumulator[0] != null) {
+            try {
+                forEachSorted(new HistoryCache.Key(null, horizon, end), true, 0, event -> {
+                    if (!event.timestamp().isBefore(end)) {
+                        return;
+                    }
+                    if (accumulator[0] == null) {
+                        // No lower bound, the statistics start with the first event
+                        accumulator[0] = new PeriodAccumulator(event.timestamp(),
+                                Duration.between(event.timestamp(), end), null, raw::add);
+                    }
+                    accumulator[0].accept(event);
+                });
+            } catch (IOException | UncheckedIOException e) {
+                System.err.println("Error reading events: " + e.getMessage());
+                return null;
+            }
+        }
+        if (accumulator[0] != null) {
+            accumulator[0].finish(end);
+        }
+        for (PeriodSummary summary : raw) {
+            total = total == null ? summary : total.merge(summary);
+        }
+        return total;
+    }
+
+    /**
+     * Sets the number of events history queries may hold in memory before sorting spills to temporary files.
+     */
+    public void setSortBudget(int sortBudget) {
+        if (sortBudget <= 0) {
+            throw new IllegalArgumentException("Sort budget must be positive");
+        }
+        this.sortBudget = sortBudget;
+    }
+
+    /**
+     * Hit, extension and miss counters of the history result cache.
+     */
+    public HistoryCache.Stats historyCacheStats() {
+        return historyCache.stats();
+    }
+
+    /**
+     * Returns the state interval containing each of {@code times}, in the same order, with null for times before
+     * the first event and for times in the summarized history, see {@link #summaryAt}. See {@link StateTimeline}.
+     */
+    public List<StateTimeline.Interval> statesAt(List<LocalDateTime> times) {
+        List<StateTimeline.Interval> intervals = null;
+        OffHeapEventStore store = offHeapStore;
+        if (store != null) {
+            try {
+                intervals = store.intervalsAt(times);
+            } catch (IOException | IllegalStateException e) {
+                System.err.println("Error reading off-heap events: " + e.getMessage());
+            }
+        }
+        if (intervals == null) {
+            try {
+                intervals = stateTimeline.at(times);
+            } catch (IOException e) {
+                System.err.println("Error reading events: " + e.getMessage());
+                return Collections.nCopies(times.size(), null);
+            }
+        }
+        return withSummaries(times, intervals);
+    }
+
+    /**
+     * Returns the summary whose period contains {@code time}, or null if {@code time} is not in the summarized
+     * history.
+     */
+    public PeriodSummary summaryAt(LocalDateTime time) {
+        for (PeriodSummary summary : summaries(null, null, null)) {
+            if (!time.isBefore(summary.start()) && time.isBefore(summary.end())) {
+                return summary;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * End of the history summarized by {@link TieringJob}, or null if nothing has been summarized.
+     */
+    public LocalDateTime summaryHorizon() {
+        try {
+            return summaryStore.horizon();
+        } catch (IOException e) {
+            System.err.println("Error reading event summaries: " + e.getMessage());
+            return null;
         }
-        if (from != null) {
-            events = events.stream().filter(e -> !e.timestamp().isBefore(from)).collect(Collectors.toList());
+    }
+
+    /**
+     * Corrects the intervals of the raw events for the summarized history: times before the horizon get null, the
+     * raw events there are gone or about to be removed, and times after the horizon but before the first raw event
+     * are in the end state of the last summary, known since the horizon.
+     */
+    private List<StateTimeline.Interval> withSummaries(List<LocalDateTime> times,
+                                                       List<StateTimeline.Interval> intervals) {
+        List<PeriodSummary> summaries = summaries(null, null, null);
+        if (summaries.isEmpty()) {
+            return intervals;
         }
-        if (to != null) {
-            events = events.stream().filter(e -> !e.timestamp().isAfter(to)).collect(Collectors.toList());
+        PeriodSummary last = summaries.getLast();
+        LocalDateTime horizon = last.end();
+        List<StateTimeline.Interval> corrected = new ArrayList<>(intervals.size());
+        List<Event> firstRaw = null;
+        for (int i = 0; i < times.size(); i++) {
+            StateTimeline.Interval interval = intervals.get(i);
+            if (times.get(i).isBefore(horizon)) {
+                interval = null;
+            } else if (interval == null) {
+                if (firstRaw == null) {
+                    firstRaw = filterEvents(null, horizon, null, true, 1);
+                }
+                interval = new StateTimeline.Interval(last.endState().status(), horizon,
+                        firstRaw.isEmpty() ? null : firstRaw.getFirst().timestamp());
+            }
+            corrected.add(interval);
+        }
+        return corrected;
+    }
+
+    /**
+     * Exports the matching events to {@code out}, see {@link EventExporter}.
+     *
+     * @return the number of bytes written
+     */
+    public long exportEvents(LocalDateTime from, LocalDateTime to, String status, EventExporter.Format format,
+                             Path out) throws IOException {
+        return new EventExporter(eventFile).export(from, to, status, format, out);
+    }
+
+    private static List<Event> order(List<Event> events, boolean asc, int limit) {
+        if (asc) {
+            events.sort(Comparator.comparing(Event::timestamp));
+        } else {
+            // Both the index and the scan return events in log order, reversing it leaves little to sort unless
+            // the clock stepped back, and keeps events with the same timestamp newest logged first
+            Collections.reverse(events);
+            events.sort(Comparator.comparing(Event::timestamp).reversed());
+        }
+        if (limit > 0 && events.size() > limit) {
+            events = new ArrayList<>(events.subList(0, limit));
         }
-        events.sort((e1, e2) -> asc ? e1.timestamp().compareTo(e2.timestamp()) : e2.timestamp().compareTo(e1.timestamp()));
         return events;
     }
-}
\ No newline at end of file
+
+    /**
+     * Passes the events matching {@code key} to {@code sink} from the off-heap store, if it is enabled.
+     *
+     * @return the number of events passed to {@code sink}, or -1 if the store is disabled or cannot answer the query
+     */
+    private long fromOffHeapStore(HistoryCache.Key key, boolean asc, int limit, Consumer<Event> sink) {
+        OffHeapEventStore store = offHeapStore;
+        if (store == null) {
+            return -1;
+        }
+        try {
+            return store.forEach(key.status(), key.from(), key.to(), asc, limit, sink);
+        } catch (IOException | IllegalStateException e) {
+            // Thrown before any event is passed on, the log can still answer the query
+            System.err.println("Error reading off-heap events: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * Returns whether newest first is the reverse log order, see {@link StatusIndex#isChronological}.
+     */
+    private boolean isChronological() {
+        try {
+            return statusIndex.isChronological();
+        } catch (IOException e) {
+            System.err.println("Error reading event index: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Passes matching events to {@code sink} newest first by reading the log backwards, which requires the log to
+     * be in chronological order.
+     *
+     * @return false if the log could not be read
+     */
+    private boolean readNewest(String lowerStatus, LocalDateTime from, LocalDateTime to, int limit,
+                               Consumer<Event> sink) {
+        try (ReverseEventReader reader = new ReverseEventReader(eventFile)) {
+            int count = 0;
+            while (reader.hasNext() && (limit <= 0 || count < limit)) {
+                Event event = reader.next();
+                if (from != null && event.timestamp().isBefore(from)) {
+                    break;
+                }
+                if ((lowerStatus == null || lowerStatus.equals(event.status()))
+                        && (to == null || !event.timestamp().isAfter(to))) {
+                    sink.accept(event);
+                    count++;
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            System.err.println("Error reading events: " + e.getMessage());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Collects the events matching {@code key} in log order, or returns null if there are more than {@code max}.
+     */
+    private List<Event> queryEvents(HistoryCache.Key key, int max) {
+        List<Event> events = new ArrayList<>();
+        boolean complete = matchingEvents(key, event -> {
+            events.add(event);
+            return events.size() <= max;
+        });
+        return complete ? events : null;
+    }
+
+    /**
+     * Passes the events matching {@code key} to {@code sink} in log order, using the status index when the query
+     * is filtered, until {@code sink} returns false.
+     *
+     * @return false if {@code sink} stopped the query
+     */
+    private boolean matchingEvents(HistoryCache.Key key, Predicate<Event> sink) {
+        boolean[] stopped = new boolean[1];
+        long[] passed = new long[1];
+        Predicate<Event> counting = event -> {
+            passed[0]++;
+            stopped[0] = !sink.test(event);
+            return !stopped[0];
+        };
+        if (key.status() != null || key.from() != null || key.to() != null) {
+            try {
+                statusIndex.forEach(key.status(), key.from(), key.to(), counting);
+                return !stopped[0];
+            } catch (IOException e) {
+                System.err.println("Error reading event index: " + e.getMessage());
+            }
+        }
+        // The scan sees the same events in the same order, skip those the index already passed on
+        long skip = passed[0];
+        try (BufferedReader reader = new BufferedReader(new FileReader(eventFile))) {
+            long matched = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                Event event = Event.fromCSV(line);
+                if (event != null && key.matches(event) && matched++ >= skip && !counting.test(event)) {
+                    return false;
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error reading events: " + e.getMessage());
+        }
+        return true;
+    }
+}
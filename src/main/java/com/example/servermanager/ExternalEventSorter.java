@@ -0,0 +1,192 @@
+package com.example.servermanager;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+/**
+ * Sorts events by timestamp with bounded memory.
+ * <p>
+ * Events are buffered until {@code budget} of them are held, then the buffer is sorted and spilled to a temporary
+ * file as a run. Draining merges the runs and the remaining buffer with a k-way merge, keeping one event per run
+ * in memory. Results that fit the budget never touch the disk. Events with equal timestamps keep the order they
+ * were added in, or the reverse order when sorting newest first.
+ */
+public class ExternalEventSorter implements Closeable {
+    private static final String RUN_PREFIX = "servermanager-sort";
+    private static final String RUN_SUFFIX = ".run";
+
+    private final boolean ascending;
+    private final int budget;
+    private final Comparator<Event> order;
+    private final List<Event> buffer = new ArrayList<>();
+    private final List<Path> runs = new ArrayList<>();
+
+    public ExternalEventSorter(boolean ascending, int budget) {
+        if (budget <= 0) {
+            throw new IllegalArgumentException("Sort budget must be positive");
+        }
+        this.ascending = ascending;
+        this.budget = budget;
+        Comparator<Event> byTimestamp = Comparator.comparing(Event::timestamp);
+        this.order = ascending ? byTimestamp : byTimestamp.reversed();
+    }
+
+    public void add(Event event) throws IOException {
+        buffer.add(event);
+        if (buffer.size() >= budget) {
+            spill();
+        }
+    }
+
+    /**
+     * Number of runs spilled to disk so far.
+     */
+    public int runCount() {
+        return runs.size();
+    }
+
+    /**
+     * Passes the sorted events to {@code sink}, at most {@code limit} of them if {@code limit} is positive.
+     *
+     * @return the number of events passed to {@code sink}
+     */
+    public long drain(int limit, Consumer<Event> sink) throws IOException {
+        sortBuffer();
+        long max = limit > 0 ? limit : Long.MAX_VALUE;
+        if (runs.isEmpty()) {
+            int count = (int) Math.min(max, buffer.size());
+            buffer.subList(0, count).forEach(sink);
+            return count;
+        }
+        List<Cursor> cursors = new ArrayList<>();
+        // Later runs win ties when sorting newest first
+        Comparator<Cursor> merge = Comparator.comparing(Cursor::current, order)
+                .thenComparingInt(cursor -> ascending ? cursor.run : -cursor.run);
+        PriorityQueue<Cursor> heads = new PriorityQueue<>(merge);
+        try {
+            for (int i = 0; i < runs.size(); i++) {
+                cursors.add(new FileCursor(i, Files.newBufferedReader(runs.get(i), StandardCharsets.UTF_8)));
+            }
+            cursors.add(new BufferCursor(runs.size(), buffer));
+            for (Cursor cursor : cursors) {
+                if (cursor.advance()) {
+                    heads.add(cursor);
+                }
+            }
+            long count = 0;
+            while (count < max && !heads.isEmpty()) {
+                Cursor cursor = heads.poll();
+                sink.accept(cursor.current());
+                count++;
+                if (cursor.advance()) {
+                    heads.add(cursor);
+                }
+            }
+            return count;
+        } finally {
+            for (Cursor cursor : cursors) {
+                cursor.close();
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer.clear();
+        for (Path run : runs) {
+            Files.deleteIfExists(run);
+        }
+        runs.clear();
+    }
+
+    private void spill() throws IOException {
+        sortBuffer();
+        Path run = Files.createTempFile(RUN_PREFIX, RUN_SUFFIX);
+        runs.add(run);
+        try (BufferedWriter writer = Files.newBufferedWriter(run, StandardCharsets.UTF_8)) {
+            for (Event event : buffer) {
+                writer.write(event.toCSV());
+                writer.newLine();
+            }
+        }
+        buffer.clear();
+    }
+
+    private void sortBuffer() {
+        if (!ascending) {
+            // The sort is stable, so reversing first puts later events first among equal timestamps
+            Collections.reverse(buffer);
+        }
+        buffer.sort(order);
+    }
+
+    private abstract static class Cursor implements Closeable {
+        private final int run;
+        private Event current;
+
+        private Cursor(int run) {
+            this.run = run;
+        }
+
+        Event current() {
+            return current;
+        }
+
+        boolean advance() throws IOException {
+            current = next();
+            return current != null;
+        }
+
+        abstract Event next() throws IOException;
+
+        @Override
+        public void close() throws IOException {
+        }
+    }
+
+    private static final class FileCursor extends Cursor {
+        private final BufferedReader reader;
+
+        private FileCursor(int run, BufferedReader reader) {
+            super(run);
+            this.reader = reader;
+        }
+
+        @Override
+        Event next() throws IOException {
+            String line = reader.readLine();
+            return line == null ? null : Event.fromCSV(line);
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
+    private static final class BufferCursor extends Cursor {
+        private final List<Event> events;
+        private int position;
+
+        private BufferCursor(int run, List<Event> events) {
+            super(run);
+            this.events = events;
+        }
+
+        @Override
+        Event next() {
+            return position < events.size() ? events.get(position++) : null;
+        }
+    }
+}
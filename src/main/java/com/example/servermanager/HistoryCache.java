@@ -0,0 +1,232 @@
+package com.example.servermanager;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+
+/**
+ * LRU cache of history query results, bounded by entry count and by the estimated heap size of the cached events.
+ * <p>
+ * Results are cached in log order per normalized filter together with the log length they were computed at and a
+ * checksum of the bytes just before that length. When the log has only grown since, the cached result is extended
+ * by scanning the appended tail instead of running the query again. A log that shrank or whose checksummed bytes
+ * changed is queried from scratch.
+ */
+public class HistoryCache {
+    static final int DEFAULT_MAX_ENTRIES = 64;
+    static final long DEFAULT_MAX_BYTES = 32L * 1024 * 1024;
+    // Event, LocalDateTime, LocalDate, LocalTime, status String and the list slot
+    private static final long EVENT_WEIGHT = 150;
+    private static final long ENTRY_WEIGHT = 200;
+    private static final int CHECK_BYTES = 64;
+    // Tails larger than this are cheaper to answer with a fresh indexed query
+    private static final int MAX_TAIL_BYTES = 1024 * 1024;
+
+    /**
+     * Normalized filter of a history query, {@code status} is lower case and unset bounds are null.
+     */
+    public record Key(String status, LocalDateTime from, LocalDateTime to) {
+        boolean matches(Event event) {
+            return (status == null || status.equals(event.status()))
+                    && (from == null || !event.timestamp().isBefore(from))
+                    && (to == null || !event.timestamp().isAfter(to));
+        }
+    }
+
+    public record Stats(long hits, long extensions, long misses, int entries, long weightBytes) {
+    }
+
+    private record Entry(List<Event> events, long length, long tailCrc) {
+        long weight() {
+            return ENTRY_WEIGHT + events.size() * EVENT_WEIGHT;
+        }
+    }
+
+    private final Path logPath;
+    private final Object writeLock;
+    private final int maxEntries;
+    private final long maxBytes;
+    private final Map<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+    private long hits;
+    private long extensions;
+    private long misses;
+
+    /**
+     * @param writeLock the lock appends to the log hold, held while a result is computed so that the result and
+     *                  the log length it is cached with agree
+     */
+    public HistoryCache(Path logPath, Object writeLock, int maxEntries, long maxBytes) {
+        this.logPath = logPath;
+        this.writeLock = writeLock;
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns the events matching {@code key} in log order, computing them with {@code query} if they are not
+     * cached. {@code query} may return null for results it does not want to materialize, which are then neither
+     * cached nor returned. The returned list is a copy the caller may modify.
+     */
+    public List<Event> get(Key key, Function<Key, List<Event>> query) {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+        }
+        Entry current = null;
+        if (entry != null) {
+            try {
+                current = refresh(key, entry);
+            } catch (IOException e) {
+                System.err.println("Error reading event log: " + e.getMessage());
+            }
+        }
+        synchronized (this) {
+            if (current == null) {
+                misses++;
+            } else if (current == entry) {
+                hits++;
+            } else {
+                extensions++;
+            }
+        }
+        if (current == null) {
+            return compute(key, entry, query);
+        }
+        if (current != entry) {
+            store(key, entry, current);
+        }
+        return new ArrayList<>(current.events());
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(hits, extensions, misses, entries.size(), weight);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        weight = 0;
+    }
+
+    private List<Event> compute(Key key, Entry previous, Function<Key, List<Event>> query) {
+        if (!Files.exists(logPath)) {
+            return query.apply(key);
+        }
+        synchronized (writeLock) {
+            FileChannel channel;
+            try {
+                channel = FileChannel.open(logPath, StandardOpenOption.READ);
+            } catch (IOException e) {
+                System.err.println("Error reading event log: " + e.getMessage());
+                return query.apply(key);
+            }
+            try (channel) {
+                long length = channel.size();
+                List<Event> events = query.apply(key);
+                if (events != null) {
+                    store(key, previous, new Entry(List.copyOf(events), length, tailCrc(channel, length)));
+                }
+                return events;
+            } catch (IOException e) {
+                System.err.println("Error reading event log: " + e.getMessage());
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Returns {@code entry} if the log is unchanged, an entry extended with the matching events of the appended
+     * tail if the log has grown, or null if the entry cannot be reused.
+     */
+    private Entry refresh(Key key, Entry entry) throws IOException {
+        if (!Files.exists(logPath)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(logPath, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < entry.length() || size - entry.length() > MAX_TAIL_BYTES
+                    || tailCrc(channel, entry.length()) != entry.tailCrc()) {
+                return null;
+            }
+            if (size == entry.length()) {
+                return entry;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) (size - entry.length()));
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, entry.length() + buffer.position()) <= 0) {
+                    break;
+                }
+            }
+            byte[] bytes = buffer.array();
+            List<Event> appended = new ArrayList<>();
+            int lineStart = 0;
+            for (int i = 0; i < buffer.position(); i++) {
+                if (bytes[i] == '\n') {
+                    Event event = Event.fromCSV(bytes, lineStart, i - lineStart);
+                    if (event != null && key.matches(event)) {
+                        appended.add(event);
+                    }
+                    lineStart = i + 1;
+                }
+            }
+            if (lineStart == 0) {
+                return entry;
+            }
+            long length = entry.length() + lineStart;
+            List<Event> events = entry.events();
+            if (!appended.isEmpty()) {
+                events = new ArrayList<>(events.size() + appended.size());
+                events.addAll(entry.events());
+                events.addAll(appended);
+                events = Collections.unmodifiableList(events);
+            }
+            return new Entry(events, length, tailCrc(channel, length));
+        }
+    }
+
+    private synchronized void store(Key key, Entry previous, Entry entry) {
+        if (entries.get(key) != previous) {
+            // Another query already replaced the entry
+            return;
+        }
+        if (previous != null) {
+            entries.remove(key);
+            weight -= previous.weight();
+        }
+        if (entry.weight() > maxBytes) {
+            return;
+        }
+        entries.put(key, entry);
+        weight += entry.weight();
+        Iterator<Entry> eldest = entries.values().iterator();
+        while ((entries.size() > maxEntries || weight > maxBytes) && eldest.hasNext()) {
+            weight -= eldest.next().weight();
+            eldest.remove();
+        }
+    }
+
+    private static long tailCrc(FileChannel channel, long length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(CHECK_BYTES, length));
+        long from = length - buffer.capacity();
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, from + buffer.position()) <= 0) {
+                break;
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.flip());
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.servermanager;
+
+/**
+ * Collects latency samples in nanoseconds and summarizes them as percentiles.
+ * <p>
+ * Samples are counted in a fixed histogram instead of being kept, so memory does not grow with the number of
+ * samples. Values below {@link #SUB_BUCKETS} have a bucket each; above, every power of two is split into
+ * {@link #SUB_BUCKETS} equal buckets, so a percentile is reported as the upper bound of its bucket, at most about
+ * 1.6% above the actual sample. The maximum is kept exactly.
+ */
+public class LatencyRecorder {
+    private static final int SUB_BITS = 6;
+    static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = (Long.SIZE - SUB_BITS) * SUB_BUCKETS;
+
+    private final long[] buckets = new long[BUCKETS];
+    private long count;
+    private long max;
+
+    public synchronized void record(long nanos) {
+        long value = Math.max(0, nanos);
+        buckets[bucket(value)]++;
+        count++;
+        max = Math.max(max, value);
+    }
+
+    public synchronized void merge(LatencyRecorder other) {
+        long[] otherBuckets;
+        long otherCount;
+        long otherMax;
+        synchronized (other) {
+            otherBuckets = other.buckets.clone();
+            otherCount = other.count;
+            otherMax = other.max;
+        }
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] += otherBuckets[i];
+        }
+        count += otherCount;
+        max = Math.max(max, otherMax);
+    }
+
+    public synchronized long count() {
+        return count;
+    }
+
+    /**
+     * Returns e.g. {@code "n=1000 p50=12.3us p99=80.1us max=1.2ms"}.
+     */
+    public synchronized String summary() {
+        if (count == 0) {
+            return "n=0";
+        }
+        return "n=" + count
+                + " p50=" + format(percentile(0.50))
+                + " p99=" + format(percentile(0.99))
+                + " p99.9=" + format(percentile(0.999))
+                + " max=" + format(max);
+    }
+
+    /**
+     * Returns the upper bound of the bucket holding the sample at {@code percentile}, capped at the maximum.
+     */
+    synchronized long percentile(double percentile) {
+        long rank = Math.max(1, (long) Math.ceil(percentile * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets[i];
+            if (seen >= rank) {
+                return Math.min(max, upperBound(i));
+            }
+        }
+        return max;
+    }
+
+    private static int bucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = Long.SIZE - SUB_BITS - 1 - Long.numberOfLeadingZeros(value);
+        return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    private static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long subBucket = bucket % SUB_BUCKETS + SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    private static String format(long nanos) {
+        if (nanos >= 1_000_000) {
+            return String.format("%.1fms", nanos / 1_000_000.0);
+        }
+        return String.format("%.1fus", nanos / 1_000.0);
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.servermanager;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Drives {@code up}/{@code down} cycles against simulated servers for capacity testing.
+ * <p>
+ * Every simulated server has its own event log in the target directory, a {@link VirtualClock} that the
+ * simulated pauses advance instead of sleeping, and a seeded {@link Random}, so a run is reproducible and
+ * limited only by the speed of the logging and query layers. Write latency is measured around every
+ * {@link EventLogger#logEvent}, and a newest-first status query is timed periodically while the log grows.
+ */
+public class LoadGenerator {
+    private static final Instant SIMULATION_START = LocalDateTime.parse("2020-01-01T00:00:00").toInstant(ZoneOffset.UTC);
+    private static final int QUERY_INTERVAL_CYCLES = 100;
+    private static final int QUERY_LIMIT = 50;
+    private static final String STATUS_FAILED = "failed";
+    private static final PrintStream DISCARD = new PrintStream(OutputStream.nullOutputStream());
+
+    private final Path directory;
+    private final long seed;
+
+    public LoadGenerator(Path directory, long seed) {
+        this.directory = directory;
+        this.seed = seed;
+    }
+
+    public record Report(int servers, long cycles, long events, Duration wallTime, Duration simulatedTime,
+                         LatencyRecorder writeLatency, LatencyRecorder queryLatency) {
+
+        public double eventsPerSecond() {
+            return events * 1_000_000_000.0 / Math.max(1, wallTime.toNanos());
+        }
+    }
+
+    /**
+     * Runs {@code cycles} up/down cycles on each of {@code servers} simulated servers, one thread per server
+     * up to the number of available processors. Console output of the simulated servers is discarded.
+     */
+    public Report run(int servers, int cycles) throws IOException, InterruptedException {
+        Files.createDirectories(directory);
+        LatencyRecorder writeLatency = new LatencyRecorder();
+        LatencyRecorder queryLatency = new LatencyRecorder();
+        List<SimulatedServer> simulated = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(servers, Runtime.getRuntime().availableProcessors()));
+        long start;
+        long end;
+        try {
+            for (int i = 0; i < servers; i++) {
+                Path log = directory.resolve("server-" + i + ".log");
+                // An existing empty log keeps the logger from announcing that it created the file
+                Files.write(log, new byte[0]);
+                Files.deleteIfExists(log.resolveSibling(log.getFileName() + ".idx"));
+                simulated.add(new SimulatedServer(log, new Random(seed + i)));
+            }
+            start = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>();
+            for (SimulatedServer server : simulated) {
+                futures.add(executor.submit(() -> server.run(cycles)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            end = System.nanoTime();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Simulated server failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+            for (SimulatedServer server : simulated) {
+                server.close();
+            }
+        }
+        Duration wallTime = Duration.ofNanos(end - start);
+
+        long events = 0;
+        Duration simulatedTime = Duration.ZERO;
+        for (SimulatedServer server : simulated) {
+            writeLatency.merge(server.logger.writeLatency);
+            queryLatency.merge(server.queryLatency);
+            events += server.logger.writeLatency.count();
+            Duration elapsed = Duration.between(SIMULATION_START, server.clock.instant());
+            if (elapsed.compareTo(simulatedTime) > 0) {
+                simulatedTime = elapsed;
+            }
+        }
+        return new Report(servers, (long) servers * cycles, events, wallTime, simulatedTime, writeLatency, queryLatency);
+    }
+
+    private static final class SimulatedServer {
+        private final VirtualClock clock = new VirtualClock(SIMULATION_START, ZoneOffset.UTC);
+        private final TimedEventLogger logger;
+        private final ServerManager manager;
+        private final LatencyRecorder queryLatency = new LatencyRecorder();
+
+        private SimulatedServer(Path log, Random random) {
+            this.logger = new TimedEventLogger(log.toString());
+            this.manager = new ServerManager(logger, clock, random, DISCARD) {
+                @Override
+                protected void pause(long millis) {
+                    SimulatedServer.this.clock.advance(Duration.ofMillis(millis));
+                }
+            };
+        }
+
+        private void close() throws IOException {
+            manager.shutdown();
+            logger.close();
+        }
+
+        private void run(int cycles) {
+            for (int cycle = 1; cycle <= cycles; cycle++) {
+                manager.up(null);
+                manager.down();
+                if (cycle % QUERY_INTERVAL_CYCLES == 0) {
+                    long start = System.nanoTime();
+                    logger.filterEvents(STATUS_FAILED, null, null, false, QUERY_LIMIT);
+                    queryLatency.record(System.nanoTime() - start);
+                }
+            }
+        }
+    }
+
+    private static final class TimedEventLogger extends EventLogger {
+        private final LatencyRecorder writeLatency = new LatencyRecorder();
+
+        private TimedEventLogger(String filename) {
+            super(filename);
+        }
+
+        @Override
+        public synchronized void logEvent(Event event) {
+            long start = System.nanoTime();
+            super.logEvent(event);
+            writeLatency.record(System.nanoTime() - start);
+        }
+    }
+}
@@ -2,7 +2,20 @@ package com.example.servermanager;
 
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
 import java.util.Scanner;
 
 @Slf4j
@@ -12,20 +25,171 @@ public class Main {
     private static final String UP_COMMAND = "up";
     private static final String DOWN_COMMAND = "down";
     private static final String HISTORY_COMMAND = "history";
+    private static final String EXPORT_COMMAND = "export";
+    private static final String LOAD_COMMAND = "load";
+    private static final String IMPORT_COMMAND = "import";
+    private static final String AT_COMMAND = "at";
+    private static final String STATS_COMMAND = "stats";
     private static final String BEFORE_PARAM = "before";
     private static final String FROM_PARAM = "from";
     private static final String TO_PARAM = "to";
     private static final String SORT_PARAM = "sort";
     private static final String STATUS_PARAM = "status";
+    private static final String LIMIT_PARAM = "limit";
+    private static final String FOLLOW_PARAM = "follow";
+    private static final String OUT_PARAM = "out";
+    private static final String FORMAT_PARAM = "format";
+    private static final String SERVERS_PARAM = "servers";
+    private static final String CYCLES_PARAM = "cycles";
     private static final String PROMPT = "> ";
     private static final String WELCOME_MESSAGE = "Server Manager Application. Enter commands (type 'exit' to quit):";
     private static final String UNSUPPORTED_COMMAND_MESSAGE = "Unsupported command: ";
 
+    private static final String LOG_OPTION = "log";
+    private static final String LEADER_OPTION = "leader";
+    private static final String FOLLOWER_OPTION = "follower";
+    private static final String SORT_BUDGET_OPTION = "sort-budget";
+    private static final String TIERS_OPTION = "tiers";
+    private static final String OFF_HEAP_OPTION = "off-heap";
+    private static final String ALERTS_OPTION = "alerts";
+    private static final String ALERT_LOG_OPTION = "alert-log";
+    private static final String DEFAULT_ALERT_LOG = "alerts.log";
+    private static final Options STARTUP_OPTIONS = new Options()
+            .addOption(Option.builder(LOG_OPTION).longOpt(LOG_OPTION).hasArg()
+                    .desc("Event log file").build())
+            .addOption(Option.builder(LEADER_OPTION).longOpt(LEADER_OPTION).hasArg()
+                    .desc("Serve the event log to followers on [address:]port, all interfaces by default").build())
+            .addOption(Option.builder(FOLLOWER_OPTION).longOpt(FOLLOWER_OPTION).hasArg()
+                    .desc("Replicate the event log from the leader at host:port, read-only").build())
+            .addOption(Option.builder().longOpt(SORT_BUDGET_OPTION).hasArg()
+                    .desc("Events history may sort in memory before spilling to temporary files").build())
+            .addOption(Option.builder().longOpt(TIERS_OPTION).hasArg()
+                    .desc("Summarize old history, AGE=PERIOD[,AGE=PERIOD...], e.g. 30d=1h,365d=1d").build())
+            .addOption(Option.builder().longOpt(OFF_HEAP_OPTION)
+                    .desc("Keep the events in memory-mapped records outside the heap, needs --enable-preview").build())
+            .addOption(Option.builder().longOpt(ALERTS_OPTION).hasArg()
+                    .desc("Evaluate the alert rules in this file as events are logged").build())
+            .addOption(Option.builder().longOpt(ALERT_LOG_OPTION).hasArg()
+                    .desc("File fired alerts are appended to, " + DEFAULT_ALERT_LOG + " by default").build());
+
+    // Set by tests, otherwise created on startup
     @Setter
-    private static ServerManager serverManager = new ServerManager();
+    private static ServerManager serverManager;
 
   public static void main(String[] args) {
-        startApp(serverManager);
+        ServerManager manager = serverManager;
+        List<Closeable> services = new ArrayList<>();
+        try {
+            CommandLine startup = new DefaultParser().parse(STARTUP_OPTIONS, args);
+            if (startup.hasOption(LOG_OPTION)) {
+                EventLogger eventLogger = new EventLogger(startup.getOptionValue(LOG_OPTION));
+                manager = new ServerManager(eventLogger, Clock.systemDefaultZone(), new Random());
+            } else if (manager == null) {
+                // Only now, the default manager creates events.log in the working directory
+                manager = new ServerManager();
+            }
+            if (manager != serverManager) {
+                // Stops the scheduler and closes the log of the manager created here, tests stop the one they set
+                services.add(manager::shutdown);
+                services.add(manager.eventLogger);
+            }
+            if (startup.hasOption(SORT_BUDGET_OPTION)) {
+                manager.eventLogger.setSortBudget(Integer.parseInt(startup.getOptionValue(SORT_BUDGET_OPTION)));
+            }
+            startOffHeapStore(startup, manager, services);
+            startTiering(startup, manager, services);
+            startAlerts(startup, manager, services);
+            startReplication(startup, manager, services);
+        } catch (ParseException | IOException | IllegalArgumentException e) {
+            System.err.println("Error starting application: " + e.getMessage());
+            stop(services);
+            return;
+        }
+        try {
+            startApp(manager);
+        } finally {
+            stop(services);
+        }
+    }
+
+    private static void stop(List<Closeable> services) {
+        for (Closeable closeable : services) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                log.debug("Error stopping background service", e);
+            }
+        }
+    }
+
+    private static void startOffHeapStore(CommandLine startup, ServerManager manager, List<Closeable> services)
+            throws IOException {
+        if (!startup.hasOption(OFF_HEAP_OPTION)) {
+            return;
+        }
+        EventLogger eventLogger = manager.eventLogger;
+        try {
+            eventLogger.setOffHeapStore(true);
+        } catch (UnsupportedClassVersionError e) {
+            throw new IllegalArgumentException("--off-heap needs the JVM to run with --enable-preview");
+        }
+        services.add(() -> eventLogger.setOffHeapStore(false));
+    }
+
+    private static void startTiering(CommandLine startup, ServerManager manager, List<Closeable> services) {
+        if (!startup.hasOption(TIERS_OPTION)) {
+            return;
+        }
+        if (startup.hasOption(LEADER_OPTION) || startup.hasOption(FOLLOWER_OPTION)) {
+            // Tiering rewrites the log, which would invalidate the offsets followers replicate from
+            throw new IllegalArgumentException("--tiers cannot be combined with replication");
+        }
+        TieringJob tiering = new TieringJob(manager.eventLogger, TieringPolicy.parse(startup.getOptionValue(TIERS_OPTION)),
+                manager.clock);
+        tiering.start();
+        services.add(tiering);
+    }
+
+    private static void startAlerts(CommandLine startup, ServerManager manager, List<Closeable> services)
+            throws IOException {
+        if (!startup.hasOption(ALERTS_OPTION)) {
+            return;
+        }
+        List<AlertRule> rules = AlertRule.load(Path.of(startup.getOptionValue(ALERTS_OPTION)));
+        AlertLog alertLog = new AlertLog(Path.of(startup.getOptionValue(ALERT_LOG_OPTION, DEFAULT_ALERT_LOG)));
+        AlertEngine alerts = new AlertEngine(manager.eventLogger, rules, manager.scheduler, manager.clock, alertLog);
+        alerts.start();
+        services.add(alerts);
+        services.add(alertLog);
+        System.out.println("Evaluating " + rules.size() + " alert rules");
+    }
+
+    private static void startReplication(CommandLine startup, ServerManager manager, List<Closeable> replication)
+            throws IOException {
+        if (startup.hasOption(LEADER_OPTION)) {
+            String address = startup.getOptionValue(LEADER_OPTION);
+            int separator = address.lastIndexOf(':');
+            InetAddress bindAddress = InetAddress.getByName(separator < 0 ? "0.0.0.0" : address.substring(0, separator));
+            ReplicationLeader leader = new ReplicationLeader(manager.eventLogger, bindAddress,
+                    Integer.parseInt(address.substring(separator + 1)));
+            leader.start();
+            replication.add(leader);
+            System.out.println("Replicating events to followers on " + bindAddress.getHostAddress() + ":"
+                    + leader.getPort());
+        }
+        if (startup.hasOption(FOLLOWER_OPTION)) {
+            String address = startup.getOptionValue(FOLLOWER_OPTION);
+            int separator = address.lastIndexOf(':');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Use --follower host:port");
+            }
+            ReplicationFollower follower = new ReplicationFollower(manager.eventLogger,
+                    address.substring(0, separator), Integer.parseInt(address.substring(separator + 1)));
+            manager.setReadOnly(true);
+            follower.start();
+            replication.add(follower);
+            System.out.println("Replicating events from " + address + ", up and down are disabled");
+        }
     }
 
     static void startApp(ServerManager serverManager) {
@@ -55,11 +219,32 @@ public class Main {
                     serverManager.down();
                     break;
                 case HISTORY_COMMAND:
+                    if (parser.hasParam(FOLLOW_PARAM)) {
+                        follow(serverManager, scanner, parser.getParam(STATUS_PARAM));
+                        break;
+                    }
                     String from = parser.getParam(FROM_PARAM);
                     String to = parser.getParam(TO_PARAM);
                     String sort = parser.getParam(SORT_PARAM);
                     String status = parser.getParam(STATUS_PARAM);
-                    serverManager.history(from, to, sort, status);
+                    String limit = parser.getParam(LIMIT_PARAM);
+                    serverManager.history(from, to, sort, status, limit);
+                    break;
+                case EXPORT_COMMAND:
+                    serverManager.export(parser.getParam(FROM_PARAM), parser.getParam(TO_PARAM),
+                            parser.getParam(OUT_PARAM), parser.getParam(FORMAT_PARAM), parser.getParam(STATUS_PARAM));
+                    break;
+                case IMPORT_COMMAND:
+                    serverManager.importEvents(parser.getArgs());
+                    break;
+                case STATS_COMMAND:
+                    serverManager.stats(parser.getParam(FROM_PARAM), parser.getParam(TO_PARAM));
+                    break;
+                case AT_COMMAND:
+                    serverManager.at(parser.getArgs());
+                    break;
+                case LOAD_COMMAND:
+                    serverManager.load(parser.getParam(SERVERS_PARAM), parser.getParam(CYCLES_PARAM));
                     break;
                 default:
                     System.err.println(UNSUPPORTED_COMMAND_MESSAGE + command);
@@ -67,4 +252,15 @@ public class Main {
         }
         scanner.close();
     }
+
+    private static void follow(ServerManager serverManager, Scanner scanner, String status) {
+        EventFollower follower = serverManager.followHistory(status);
+        // Block until the user presses Enter, events are printed by the follower thread
+        if (scanner.hasNextLine()) {
+            scanner.nextLine();
+        }
+        if (follower != null) {
+            follower.close();
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,339 @@
+package com.example.servermanager;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Copy of the event log in fixed-size records outside the Java heap, for histories too large to query through
+ * {@link Event} lists without long GC pauses.
+ * <p>
+ * Every event is a {@link #RECORD_BYTES} byte record: the epoch second (UTC) and nanosecond of its timestamp and the
+ * id of its status in a small dictionary. The records are written to {@code events.log.records}, which is mapped in
+ * chunks of {@link #DEFAULT_CHUNK_RECORDS} records into a shared {@link Arena}. The heap only holds the chunk list
+ * and the dictionary however long the log is, and queries binary-search the mapped records by timestamp and create
+ * {@link Event}s only for the records they return. Queries filtered by status walk a posting list of the indexes of
+ * the records with that status, kept in native memory of the same arena, instead of all records.
+ * <p>
+ * The records are built from the log when the store is first queried and extended with the lines appended since
+ * the previous query. Range queries and point-in-time lookups need the log in chronological order; once an event is
+ * appended out of order (e.g. by an import) they return -1 or null and callers fall back to reading the log.
+ * <p>
+ * Uses the Foreign Function &amp; Memory API, a preview API in Java 21: the JVM must run with
+ * {@code --enable-preview}.
+ */
+public class OffHeapEventStore implements Closeable {
+    static final int RECORD_BYTES = 16;
+    static final int DEFAULT_CHUNK_RECORDS = 1 << 20;
+    private static final String RECORDS_SUFFIX = ".records";
+    private static final int READ_BUFFER_SIZE = 1 << 20;
+    private static final long SECONDS_OFFSET = 0;
+    private static final long NANOS_OFFSET = 8;
+    private static final long STATUS_OFFSET = 12;
+    private static final long POSTING_BYTES = 8;
+
+    private final Path logPath;
+    private final Path recordsPath;
+    private final int chunkRecords;
+    private final Arena arena = Arena.ofShared();
+    private final FileChannel records;
+    private final List<MemorySegment> chunks = new ArrayList<>();
+    private final List<String> statuses = new ArrayList<>();
+    private final Map<String, Integer> statusIds = new HashMap<>();
+    private final List<Postings> postings = new ArrayList<>();
+    private long count;
+    private long length;
+    private boolean sorted = true;
+    private boolean closed;
+
+    public OffHeapEventStore(Path logPath) throws IOException {
+        this(logPath, DEFAULT_CHUNK_RECORDS);
+    }
+
+    OffHeapEventStore(Path logPath, int chunkRecords) throws IOException {
+        this.logPath = logPath;
+        this.recordsPath = logPath.resolveSibling(logPath.getFileName() + RECORDS_SUFFIX);
+        this.chunkRecords = chunkRecords;
+        this.records = FileChannel.open(recordsPath, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    /**
+     * Passes the events whose status equals {@code status} (if not null) and whose timestamp lies within
+     * {@code [from, to]} (bounds are optional) to {@code sink} in timestamp order, at most {@code limit} of them if
+     * {@code limit} is positive. Events with the same timestamp keep their log order, reversed for newest first.
+     *
+     * @return the number of events passed to {@code sink}, or -1 if the log is not in chronological order
+     */
+    public synchronized long forEach(String status, LocalDateTime from, LocalDateTime to, boolean asc, int limit,
+                                     Consumer<Event> sink) throws IOException {
+        refresh();
+        if (!sorted) {
+            return -1;
+        }
+        Postings matching = null;
+        if (status != null) {
+            Integer id = statusIds.get(status);
+            if (id == null) {
+                return 0;
+            }
+            matching = postings.get(id);
+        }
+        long size = matching == null ? count : matching.size;
+        long first = from == null ? 0 : search(matching, size, from, false);
+        long end = to == null ? size : search(matching, size, to, true);
+        long passed = 0;
+        for (long i = asc ? first : end - 1; asc ? i < end : i >= first; i += asc ? 1 : -1) {
+            sink.accept(event(matching == null ? i : matching.get(i)));
+            if (++passed == limit) {
+                break;
+            }
+        }
+        return passed;
+    }
+
+    /**
+     * Returns the last event of the log, or null if there is none.
+     */
+    public synchronized Event last() throws IOException {
+        refresh();
+        return count == 0 ? null : event(count - 1);
+    }
+
+    /**
+     * Returns the state interval containing each of {@code times}, in the same order, with null for times before
+     * the first event, as {@link StateTimeline} would.
+     *
+     * @return the intervals, or null if the log is not in chronological order
+     */
+    public synchronized List<StateTimeline.Interval> intervalsAt(List<LocalDateTime> times) throws IOException {
+        refresh();
+        if (!sorted) {
+            return null;
+        }
+        List<StateTimeline.Interval> intervals = new ArrayList<>(times.size());
+        for (LocalDateTime time : times) {
+            intervals.add(intervalAt(search(null, count, time, true) - 1));
+        }
+        return intervals;
+    }
+
+    public synchronized long size() throws IOException {
+        refresh();
+        return count;
+    }
+
+    /**
+     * Drops the records, e.g. after the log was rewritten, so that the next query rebuilds them. The mapped chunks
+     * are kept and reused.
+     */
+    public synchronized void invalidate() {
+        count = 0;
+        length = 0;
+        sorted = true;
+        postings.forEach(Postings::clear);
+    }
+
+    /**
+     * Unmaps the records and deletes their file.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        chunks.clear();
+        postings.clear();
+        arena.close();
+        records.close();
+        Files.deleteIfExists(recordsPath);
+    }
+
+    /**
+     * The interval of the run of records with the status of record {@code index}, which spans from the first
+     * record of the run until the next status change.
+     */
+    private StateTimeline.Interval intervalAt(long index) {
+        if (index < 0) {
+            return null;
+        }
+        int statusId = statusId(index);
+        long start = index;
+        while (start > 0 && statusId(start - 1) == statusId) {
+            start--;
+        }
+        long next = index + 1;
+        while (next < count && statusId(next) == statusId) {
+            next++;
+        }
+        return new StateTimeline.Interval(statuses.get(statusId), timestamp(start),
+                next < count ? timestamp(next) : null);
+    }
+
+    /**
+     * Returns the position of the first record after {@code time} if {@code after} is set, or at or after it if not,
+     * among the first {@code size} records of {@code matching}, or of all records if it is null.
+     */
+    private long search(Postings matching, long size, LocalDateTime time, boolean after) {
+        long seconds = time.toEpochSecond(ZoneOffset.UTC);
+        int nanos = time.getNano();
+        long low = 0;
+        long high = size;
+        while (low < high) {
+            long middle = (low + high) >>> 1;
+            int comparison = compare(matching == null ? middle : matching.get(middle), seconds, nanos);
+            if (comparison < 0 || (after && comparison == 0)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private int compare(long index, long seconds, int nanos) {
+        MemorySegment chunk = chunk(index);
+        long offset = offset(index);
+        int comparison = Long.compare(chunk.get(ValueLayout.JAVA_LONG, offset + SECONDS_OFFSET), seconds);
+        return comparison != 0 ? comparison : Integer.compare(chunk.get(ValueLayout.JAVA_INT, offset + NANOS_OFFSET), nanos);
+    }
+
+    private Event event(long index) {
+        return new Event(statuses.get(statusId(index)), timestamp(index));
+    }
+
+    private LocalDateTime timestamp(long index) {
+        MemorySegment chunk = chunk(index);
+        long offset = offset(index);
+        return LocalDateTime.ofEpochSecond(chunk.get(ValueLayout.JAVA_LONG, offset + SECONDS_OFFSET),
+                chunk.get(ValueLayout.JAVA_INT, offset + NANOS_OFFSET), ZoneOffset.UTC);
+    }
+
+    private int statusId(long index) {
+        return chunk(index).get(ValueLayout.JAVA_INT, offset(index) + STATUS_OFFSET);
+    }
+
+    private MemorySegment chunk(long index) {
+        return chunks.get((int) (index / chunkRecords));
+    }
+
+    private long offset(long index) {
+        return (index % chunkRecords) * RECORD_BYTES;
+    }
+
+    private void refresh() throws IOException {
+        if (closed) {
+            throw new IllegalStateException("Off-heap event store is closed");
+        }
+        if (!Files.exists(logPath)) {
+            invalidate();
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(logPath, StandardOpenOption.READ)) {
+            if (channel.size() < length) {
+                invalidate();
+            }
+            read(channel);
+        }
+    }
+
+    /**
+     * Appends the records of the complete lines after {@link #length} and advances it past them.
+     */
+    private void read(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        byte[] bytes = buffer.array();
+        long position = length;
+        while (true) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read <= 0) {
+                break;
+            }
+            int lineStart = 0;
+            for (int i = 0; i < buffer.position(); i++) {
+                if (bytes[i] == '\n') {
+                    Event event = Event.fromCSV(bytes, lineStart, i - lineStart);
+                    if (event != null) {
+                        append(event);
+                    }
+                    lineStart = i + 1;
+                }
+            }
+            if (lineStart == 0 && !buffer.hasRemaining()) {
+                throw new IOException("Line longer than " + READ_BUFFER_SIZE + " bytes at offset " + position);
+            }
+            // Keep the partial last line for the next read
+            position += lineStart;
+            buffer.limit(buffer.position()).position(lineStart);
+            buffer.compact();
+        }
+        length = position;
+    }
+
+    private void append(Event event) throws IOException {
+        if (count == (long) chunks.size() * chunkRecords) {
+            long chunkBytes = (long) chunkRecords * RECORD_BYTES;
+            chunks.add(records.map(FileChannel.MapMode.READ_WRITE, chunks.size() * chunkBytes, chunkBytes, arena));
+        }
+        long seconds = event.timestamp().toEpochSecond(ZoneOffset.UTC);
+        int nanos = event.timestamp().getNano();
+        if (sorted && count > 0 && compare(count - 1, seconds, nanos) > 0) {
+            sorted = false;
+        }
+        Integer statusId = statusIds.get(event.status());
+        if (statusId == null) {
+            statusId = statuses.size();
+            statuses.add(event.status());
+            statusIds.put(event.status(), statusId);
+            postings.add(new Postings());
+        }
+        postings.get(statusId).add(count);
+        MemorySegment chunk = chunk(count);
+        long offset = offset(count);
+        chunk.set(ValueLayout.JAVA_LONG, offset + SECONDS_OFFSET, seconds);
+        chunk.set(ValueLayout.JAVA_INT, offset + NANOS_OFFSET, nanos);
+        chunk.set(ValueLayout.JAVA_INT, offset + STATUS_OFFSET, statusId);
+        count++;
+    }
+
+    /**
+     * Growable list of record indexes in native memory, in chunks of {@link #chunkRecords} indexes.
+     */
+    private final class Postings {
+        private final List<MemorySegment> chunks = new ArrayList<>();
+        private long size;
+
+        private void add(long index) {
+            if (size == (long) chunks.size() * chunkRecords) {
+                chunks.add(arena.allocate(chunkRecords * POSTING_BYTES, POSTING_BYTES));
+            }
+            chunks.get((int) (size / chunkRecords)).set(ValueLayout.JAVA_LONG, (size % chunkRecords) * POSTING_BYTES,
+                    index);
+            size++;
+        }
+
+        private long get(long position) {
+            return chunks.get((int) (position / chunkRecords))
+                    .get(ValueLayout.JAVA_LONG, (position % chunkRecords) * POSTING_BYTES);
+        }
+
+        private void clear() {
+            size = 0;
+        }
+    }
+}
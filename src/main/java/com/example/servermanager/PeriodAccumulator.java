@@ -0,0 +1,112 @@
+package com.example.servermanager;
+
+import com.example.servermanager.ServerLifecycle.State;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.function.Consumer;
+
+/**
+ * Turns a chronological stream of events into {@link PeriodSummary}s of consecutive, equally long periods.
+ * <p>
+ * The state set by an event lasts until the next event, so time is attributed to the state the server was in, and
+ * periods without events are summarized from the state carried over from the previous one. Time before the first
+ * known state is not attributed to any state. Events before the first period only set the initial state, and
+ * statuses that are not lifecycle states are ignored.
+ */
+public class PeriodAccumulator {
+    private final Duration period;
+    private final Consumer<PeriodSummary> output;
+    private LocalDateTime periodStart;
+    private LocalDateTime periodEnd;
+    private State state;
+    private LocalDateTime stateSince;
+    private EnumMap<State, Duration> durations = new EnumMap<>(State.class);
+    private int transitions;
+    private int failures;
+    private boolean seen;
+
+    /**
+     * @param origin  start of the first period
+     * @param initial state at {@code origin}, or null if unknown
+     */
+    public PeriodAccumulator(LocalDateTime origin, Duration period, State initial, Consumer<PeriodSummary> output) {
+        if (period.isNegative() || period.isZero()) {
+            throw new IllegalArgumentException("Period must be positive");
+        }
+        this.period = period;
+        this.output = output;
+        this.periodStart = origin;
+        this.periodEnd = origin.plus(period);
+        this.state = initial;
+        this.stateSince = origin;
+    }
+
+    public void accept(Event event) {
+        State next = State.of(event.status());
+        if (next == null) {
+            return;
+        }
+        LocalDateTime time = event.timestamp();
+        if (time.isBefore(periodStart)) {
+            state = next;
+            return;
+        }
+        advance(time);
+        attribute(time);
+        if (next != state) {
+            transitions++;
+        }
+        if (next == State.FAILED) {
+            failures++;
+        }
+        state = next;
+        seen = true;
+    }
+
+    /**
+     * Summarizes the periods up to {@code end}, which should be a period boundary. The state of the last event lasts
+     * until then.
+     */
+    public void finish(LocalDateTime end) {
+        advance(end);
+        if (!periodStart.isBefore(end)) {
+            return;
+        }
+        // A partial last period
+        attribute(end);
+        periodEnd = end;
+        emit();
+    }
+
+    public State state() {
+        return state;
+    }
+
+    private void advance(LocalDateTime time) {
+        while (!time.isBefore(periodEnd)) {
+            attribute(periodEnd);
+            emit();
+            periodStart = periodEnd;
+            periodEnd = periodStart.plus(period);
+        }
+    }
+
+    private void attribute(LocalDateTime until) {
+        if (state != null && until.isAfter(stateSince)) {
+            durations.merge(state, Duration.between(stateSince, until), Duration::plus);
+        }
+        stateSince = until;
+    }
+
+    private void emit() {
+        if (state != null && (seen || !durations.isEmpty())) {
+            output.accept(new PeriodSummary(periodStart, periodEnd, state, transitions, failures, durations));
+        }
+        durations = new EnumMap<>(State.class);
+        transitions = 0;
+        failures = 0;
+        seen = false;
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.servermanager;
+
+import com.example.servermanager.ServerLifecycle.State;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Compact replacement for the raw events of a period: how long the server spent in each state, how often its state
+ * changed, how many failures were logged and the state it was in at the end of the period.
+ */
+public record PeriodSummary(LocalDateTime start, LocalDateTime end, State endState, int transitions, int failures,
+                            Map<State, Duration> durations) {
+    private static final String SEPARATOR = ",";
+
+    public PeriodSummary {
+        EnumMap<State, Duration> copy = new EnumMap<>(State.class);
+        durations.forEach((state, duration) -> {
+            if (!duration.isZero()) {
+                copy.put(state, duration);
+            }
+        });
+        durations = Map.copyOf(copy);
+    }
+
+    public Duration duration(State state) {
+        return durations.getOrDefault(state, Duration.ZERO);
+    }
+
+    /**
+     * Whether {@code history --status} should list this summary: the server spent time in the state, or failed
+     * during the period for {@code failed}.
+     */
+    public boolean matches(String status) {
+        if (status == null) {
+            return true;
+        }
+        State state = State.of(status);
+        return state != null && (!duration(state).isZero() || (state == State.FAILED && failures > 0));
+    }
+
+    public boolean overlaps(LocalDateTime from, LocalDateTime to) {
+        return (from == null || end.isAfter(from)) && (to == null || !start.isAfter(to));
+    }
+
+    /**
+     * Combines this summary with the one of the period that directly follows it.
+     */
+    public PeriodSummary merge(PeriodSummary next) {
+        EnumMap<State, Duration> sum = new EnumMap<>(State.class);
+        sum.putAll(durations);
+        next.durations.forEach((state, duration) -> sum.merge(state, duration, Duration::plus));
+        return new PeriodSummary(start, next.end, next.endState, transitions + next.transitions,
+                failures + next.failures, sum);
+    }
+
+    /**
+     * Line format of the summary file: start, end, end state, transitions, failures and the milliseconds spent in
+     * each {@link State} in declaration order.
+     */
+    public String toCSV() {
+        StringBuilder line = new StringBuilder()
+                .append(start).append(SEPARATOR)
+                .append(end).append(SEPARATOR)
+                .append(endState.status()).append(SEPARATOR)
+                .append(transitions).append(SEPARATOR)
+                .append(failures);
+        for (State state : State.values()) {
+            line.append(SEPARATOR).append(duration(state).toMillis());
+        }
+        return line.toString();
+    }
+
+    public static PeriodSummary fromCSV(String line) {
+        String[] parts = line.split(SEPARATOR);
+        State[] states = State.values();
+        if (parts.length != 5 + states.length) {
+            throw new IllegalArgumentException("Malformed summary: " + line);
+        }
+        EnumMap<State, Duration> durations = new EnumMap<>(State.class);
+        for (int i = 0; i < states.length; i++) {
+            durations.put(states[i], Duration.ofMillis(Long.parseLong(parts[5 + i])));
+        }
+        State endState = State.of(parts[2]);
+        if (endState == null) {
+            throw new IllegalArgumentException("Unknown state in summary: " + line);
+        }
+        return new PeriodSummary(LocalDateTime.parse(parts[0]), LocalDateTime.parse(parts[1]), endState,
+                Integer.parseInt(parts[3]), Integer.parseInt(parts[4]), durations);
+    }
+}
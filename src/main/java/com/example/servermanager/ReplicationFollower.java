@@ -0,0 +1,156 @@
+package com.example.servermanager;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Keeps a local copy of the leader's event log up to date, see {@link ReplicationLeader} for the protocol.
+ * <p>
+ * The follower resumes from the end of its local copy, so it catches up from whatever offset it stopped at,
+ * and reconnects with a delay when the connection to the leader is lost. It stops when the leader rejects it, e.g.
+ * because the local copy differs from the leader log, and when a frame is longer than a batch can be.
+ */
+@Slf4j
+public class ReplicationFollower implements Closeable {
+    private static final long RECONNECT_DELAY_MS = 1000;
+    private static final int CONNECT_TIMEOUT_MS = 5000;
+
+    private final EventLogger eventLogger;
+    private final String host;
+    private final int port;
+    private volatile boolean running;
+    private volatile long replicatedOffset;
+    private volatile Socket socket;
+    private Thread thread;
+
+    public ReplicationFollower(EventLogger eventLogger, String host, int port) {
+        this.eventLogger = eventLogger;
+        this.host = host;
+        this.port = port;
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this::replicateLoop, "replication-follower");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * False once the follower was closed or rejected by the leader.
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Offset up to which the local copy has been written and acknowledged to the leader.
+     */
+    public long getReplicatedOffset() {
+        return replicatedOffset;
+    }
+
+    @Override
+    public synchronized void close() {
+        running = false;
+        Socket current = socket;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException e) {
+                log.debug("Error closing leader socket", e);
+            }
+        }
+        if (thread != null) {
+            thread.interrupt();
+            try {
+                thread.join(RECONNECT_DELAY_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void replicateLoop() {
+        while (running) {
+            try (Socket connection = new Socket()) {
+                socket = connection;
+                connection.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT_MS);
+                connection.setTcpNoDelay(true);
+                connection.setKeepAlive(true);
+                if (!replicate(connection)) {
+                    running = false;
+                    return;
+                }
+            } catch (IOException e) {
+                if (running) {
+                    log.info("Replication from {}:{} interrupted: {}", host, port, e.getMessage());
+                }
+            }
+            try {
+                Thread.sleep(RECONNECT_DELAY_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Replicates until the connection fails. Returns false if the leader rejected this follower or sent a frame
+     * longer than a batch.
+     */
+    private boolean replicate(Socket connection) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(connection.getInputStream()));
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(connection.getOutputStream()));
+        long offset;
+        try (FileChannel channel = FileChannel.open(eventLogger.getEventFile().toPath(), StandardOpenOption.READ)) {
+            offset = channel.size();
+            out.writeLong(offset);
+            out.writeLong(ReplicationLeader.crc(channel, 0, Math.min(ReplicationLeader.CHECK_BYTES, offset)));
+            out.writeLong(ReplicationLeader.crc(channel, Math.max(0, offset - ReplicationLeader.CHECK_BYTES), offset));
+        }
+        replicatedOffset = offset;
+        out.flush();
+        byte[] buffer = new byte[0];
+        while (running) {
+            byte frame = in.readByte();
+            if (frame == ReplicationLeader.FRAME_ERROR) {
+                System.err.println("Replication rejected by leader: " + in.readUTF());
+                return false;
+            }
+            if (frame != ReplicationLeader.FRAME_DATA) {
+                throw new IOException("Unexpected replication frame " + frame);
+            }
+            long frameOffset = in.readLong();
+            int length = in.readInt();
+            if (length < 0 || length > ReplicationLeader.MAX_BATCH_BYTES) {
+                // Not a leader of this protocol, or a broken one: do not allocate what it asks for
+                System.err.println("Replication stopped, invalid frame length " + length + " from leader");
+                return false;
+            }
+            if (buffer.length < length) {
+                buffer = new byte[length];
+            }
+            in.readFully(buffer, 0, length);
+            offset = eventLogger.appendReplicated(frameOffset, buffer, length);
+            replicatedOffset = offset;
+            out.writeLong(offset);
+            out.flush();
+        }
+        return true;
+    }
+}
@@ -0,0 +1,295 @@
+package com.example.servermanager;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Streams the event log to {@link ReplicationFollower}s over TCP.
+ * <p>
+ * Protocol: a follower connects and sends the offset its copy of the log ends at, followed by CRCs of the first and
+ * the last {@link #CHECK_BYTES} bytes before that offset. The leader answers with {@link #FRAME_DATA} frames
+ * ({@code offset}, {@code length}, raw log bytes) carrying batches of complete lines, and the follower acknowledges
+ * every frame with the offset its copy has durably reached. The next batch is sent once the previous one is
+ * acknowledged, so a follower can resume from its last acknowledged offset after a disconnect. An offset the leader
+ * cannot continue from, a copy whose CRCs do not match the leader log, and a line longer than a batch are answered
+ * with a {@link #FRAME_ERROR} frame. When the leader log is replaced by a rewrite the sessions are closed, and
+ * followers are checked again when they reconnect.
+ * <p>
+ * The connection is neither authenticated nor encrypted. Bind the leader to an address only the followers can
+ * reach.
+ */
+@Slf4j
+public class ReplicationLeader implements Closeable {
+    static final byte FRAME_DATA = 1;
+    static final byte FRAME_ERROR = 2;
+    static final int CHECK_BYTES = 4096;
+    static final int MAX_BATCH_BYTES = 1024 * 1024;
+    private static final long POLL_INTERVAL_MS = 1000;
+
+    private final EventLogger eventLogger;
+    private final ServerSocket serverSocket;
+    private final Map<String, Long> acknowledgedOffsets = new ConcurrentHashMap<>();
+    private final Map<Session, Boolean> sessions = new ConcurrentHashMap<>();
+    private volatile boolean running;
+
+    public ReplicationLeader(EventLogger eventLogger, int port) throws IOException {
+        this(eventLogger, InetAddress.getByName("0.0.0.0"), port);
+    }
+
+    /**
+     * @param bindAddress local address to accept followers on, e.g. of a private network interface
+     */
+    public ReplicationLeader(EventLogger eventLogger, InetAddress bindAddress, int port) throws IOException {
+        this.eventLogger = eventLogger;
+        this.serverSocket = new ServerSocket(port, 50, bindAddress);
+    }
+
+    public void start() {
+        running = true;
+        Thread acceptor = new Thread(this::acceptLoop, "replication-leader");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Last offset acknowledged by each connected follower, keyed by its address. A follower's entry is removed when
+     * its session ends, a reconnect gets a new entry.
+     */
+    public Map<String, Long> acknowledgedOffsets() {
+        return Map.copyOf(acknowledgedOffsets);
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            log.debug("Error closing replication socket", e);
+        }
+        sessions.keySet().forEach(Session::close);
+    }
+
+    /**
+     * CRC of the bytes in {@code [from, to)} of the log, which the follower sends and the leader checks.
+     */
+    static long crc(FileChannel channel, long from, long to) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) (to - from));
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, from + buffer.position()) <= 0) {
+                throw new IOException("Unexpected end of log at offset " + (from + buffer.position()));
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.flip());
+        return crc.getValue();
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                Session session = new Session(socket);
+                sessions.put(session, Boolean.TRUE);
+                Thread thread = new Thread(session, "replication-session-" + socket.getRemoteSocketAddress());
+                thread.setDaemon(true);
+                thread.start();
+            } catch (IOException e) {
+                if (running) {
+                    log.warn("Error accepting follower connection", e);
+                }
+            }
+        }
+    }
+
+    private final class Session implements Runnable {
+        private final Socket socket;
+        private final String follower;
+        private final Semaphore signal = new Semaphore(0);
+        private final Consumer<Event> listener = event -> signal.release();
+        private Object fileKey;
+
+        private Session(Socket socket) {
+            this.socket = socket;
+            this.follower = socket.getRemoteSocketAddress().toString();
+        }
+
+        @Override
+        public void run() {
+            eventLogger.addListener(listener);
+            Path logPath = eventLogger.getEventFile().toPath();
+            try {
+                // Read the key before opening, a replacement in between is then noticed while streaming
+                fileKey = Files.readAttributes(logPath, BasicFileAttributes.class).fileKey();
+            } catch (IOException e) {
+                log.warn("Cannot read the attributes of {}: {}", logPath, e.getMessage());
+            }
+            try (socket;
+                 FileChannel channel = FileChannel.open(logPath, StandardOpenOption.READ)) {
+                socket.setTcpNoDelay(true);
+                socket.setKeepAlive(true);
+                DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                long offset = in.readLong();
+                long headCrc = in.readLong();
+                long tailCrc = in.readLong();
+                String error = validateOffset(channel, offset, headCrc, tailCrc);
+                if (error != null) {
+                    reject(out, error);
+                    return;
+                }
+                log.info("Follower {} replicating from offset {}", follower, offset);
+                stream(channel, logPath, in, out, offset);
+            } catch (SocketException e) {
+                log.info("Follower {} disconnected", follower);
+            } catch (IOException e) {
+                log.warn("Replication to {} failed: {}", follower, e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                eventLogger.removeListener(listener);
+                acknowledgedOffsets.remove(follower);
+                sessions.remove(this);
+            }
+        }
+
+        private void stream(FileChannel channel, Path logPath, DataInputStream in, DataOutputStream out, long offset)
+                throws IOException, InterruptedException {
+            ByteBuffer buffer = ByteBuffer.allocate(MAX_BATCH_BYTES);
+            while (running) {
+                Object key = Files.readAttributes(logPath, BasicFileAttributes.class).fileKey();
+                if (key != null && !key.equals(fileKey)) {
+                    throw new IOException("The leader log was replaced, the follower has to reconnect");
+                }
+                long size = channel.size();
+                int length = 0;
+                if (size > offset) {
+                    length = readBatch(channel, buffer, offset, size);
+                    if (length == 0 && buffer.position() == MAX_BATCH_BYTES) {
+                        reject(out, "Line longer than " + MAX_BATCH_BYTES + " bytes at offset " + offset);
+                        return;
+                    }
+                }
+                if (length == 0) {
+                    signal.tryAcquire(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                    signal.drainPermits();
+                    if (disconnected(in)) {
+                        log.info("Follower {} disconnected", follower);
+                        return;
+                    }
+                    continue;
+                }
+                out.writeByte(FRAME_DATA);
+                out.writeLong(offset);
+                out.writeInt(length);
+                out.write(buffer.array(), 0, length);
+                out.flush();
+                long acknowledged = in.readLong();
+                if (acknowledged != offset + length) {
+                    throw new IOException("Follower acknowledged " + acknowledged + ", expected " + (offset + length));
+                }
+                offset = acknowledged;
+                acknowledgedOffsets.put(follower, acknowledged);
+            }
+        }
+
+        /**
+         * Whether the follower closed the connection while no data was sent. Followers only send acknowledgements,
+         * so a read then either times out or hits the end of the stream.
+         */
+        private boolean disconnected(DataInputStream in) throws IOException {
+            socket.setSoTimeout(1);
+            try {
+                if (in.read() < 0) {
+                    return true;
+                }
+                throw new IOException("Unexpected data from follower");
+            } catch (SocketTimeoutException e) {
+                return false;
+            } finally {
+                socket.setSoTimeout(0);
+            }
+        }
+
+        private void reject(DataOutputStream out, String error) throws IOException {
+            log.warn("Rejecting follower {}: {}", follower, error);
+            out.writeByte(FRAME_ERROR);
+            out.writeUTF(error);
+            out.flush();
+        }
+
+        /**
+         * Reads up to {@link #MAX_BATCH_BYTES} from {@code offset} and returns the length of the complete lines read.
+         * A full buffer without a complete line means the line at {@code offset} is too long to replicate.
+         */
+        private int readBatch(FileChannel channel, ByteBuffer buffer, long offset, long size) throws IOException {
+            buffer.clear().limit((int) Math.min(MAX_BATCH_BYTES, size - offset));
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, offset + buffer.position()) <= 0) {
+                    break;
+                }
+            }
+            byte[] bytes = buffer.array();
+            int length = buffer.position();
+            while (length > 0 && bytes[length - 1] != '\n') {
+                length--;
+            }
+            return length;
+        }
+
+        private String validateOffset(FileChannel channel, long offset, long headCrc, long tailCrc)
+                throws IOException {
+            long size = channel.size();
+            if (offset < 0 || offset > size) {
+                return "Offset " + offset + " is beyond the leader log (" + size + " bytes)";
+            }
+            if (offset > 0) {
+                ByteBuffer previous = ByteBuffer.allocate(1);
+                channel.read(previous, offset - 1);
+                if (previous.get(0) != '\n') {
+                    return "Offset " + offset + " is not at the start of a line";
+                }
+            }
+            if (headCrc != crc(channel, 0, Math.min(CHECK_BYTES, offset))
+                    || tailCrc != crc(channel, Math.max(0, offset - CHECK_BYTES), offset)) {
+                return "The copy of the log up to offset " + offset + " differs from the leader log";
+            }
+            return null;
+        }
+
+        private void close() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                log.debug("Error closing follower socket", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.servermanager;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads the event log backwards, from its end towards its beginning, in large blocks.
+ * <p>
+ * Events are appended with the time they happened, so the log is normally in chronological order and reading it
+ * backwards yields the newest events first without sorting. A caller that only needs the newest events
+ * stops iterating early and only the tail of the file is read. The clock can step back, e.g. when daylight saving
+ * time ends, so callers that need timestamp order check {@link StatusIndex#isChronological} first.
+ */
+public class ReverseEventReader implements Iterator<Event>, Closeable {
+    private static final int DEFAULT_BLOCK_SIZE = 256 * 1024;
+
+    private final FileChannel channel;
+    private final int blockSize;
+    private long position;
+    private byte[] chunk = new byte[0];
+    private byte[] pending = new byte[0];
+    private int[] lineStarts = new int[1024];
+    private int[] lineEnds = new int[1024];
+    private int nextLine = -1;
+    private Event next;
+
+    public ReverseEventReader(File file) throws IOException {
+        this(file, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * @param blockSize number of bytes read at a time, small values suit callers that need only the last events
+     */
+    public ReverseEventReader(File file, int blockSize) throws IOException {
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        this.position = channel.size();
+        this.blockSize = blockSize;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (next == null) {
+            if (nextLine < 0) {
+                try {
+                    if (!readBlock()) {
+                        return false;
+                    }
+                } catch (IOException e) {
+                    throw new IllegalStateException("Error reading events: " + e.getMessage(), e);
+                }
+                continue;
+            }
+            int line = nextLine--;
+            next = Event.fromCSV(chunk, lineStarts[line], lineEnds[line] - lineStarts[line]);
+        }
+        return true;
+    }
+
+    @Override
+    public Event next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Event event = next;
+        next = null;
+        return event;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Reads the block preceding the current position and splits it into lines. The bytes before the first
+     * line break of the block belong to a line that starts in an earlier block and are kept as pending until
+     * that block is read.
+     */
+    private boolean readBlock() throws IOException {
+        if (position == 0) {
+            if (pending.length == 0) {
+                return false;
+            }
+            // The first line of the file
+            chunk = pending;
+            pending = new byte[0];
+            lineStarts[0] = 0;
+            lineEnds[0] = chunk.length;
+            nextLine = 0;
+            return true;
+        }
+        int read = (int) Math.min(blockSize, position);
+        position -= read;
+        int length = read + pending.length;
+        if (chunk.length < length) {
+            chunk = new byte[Math.max(length, blockSize)];
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(chunk, 0, read);
+        long offset = position;
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, offset);
+            if (n < 0) {
+                throw new IOException("Event log was truncated while reading");
+            }
+            offset += n;
+        }
+        System.arraycopy(pending, 0, chunk, read, pending.length);
+
+        int firstBreak = 0;
+        while (firstBreak < length && chunk[firstBreak] != '\n') {
+            firstBreak++;
+        }
+        pending = Arrays.copyOf(chunk, firstBreak);
+        int lines = 0;
+        int start = firstBreak + 1;
+        for (int i = start; i <= length; i++) {
+            if (i == length || chunk[i] == '\n') {
+                if (i > start) {
+                    if (lines == lineStarts.length) {
+                        lineStarts = Arrays.copyOf(lineStarts, lines * 2);
+                        lineEnds = Arrays.copyOf(lineEnds, lines * 2);
+                    }
+                    lineStarts[lines] = start;
+                    lineEnds[lines] = i;
+                    lines++;
+                }
+                start = i + 1;
+            }
+        }
+        nextLine = lines - 1;
+        return true;
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.servermanager;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-memory lifecycle state of the server, journaled to the {@link EventLogger}.
+ * <p>
+ * Valid transitions are {@code down/failed -> starting -> up/failed} and {@code up -> stopping -> down/failed}.
+ * The state lives in an {@link AtomicReference} that is read without locking, so a transition that is not allowed
+ * is rejected without waiting or touching the log. Transitions themselves are made under a single lock that also
+ * orders their journal appends, so two callers can never both begin one. The state is recovered from the last
+ * logged event on first use.
+ * <p>
+ * A {@code starting} or {@code stopping} state recovered from the log has no transition in flight in this
+ * process (it was interrupted). Such orphaned states can be left again if the caller allows it, while in-flight
+ * ones block every other transition until they complete.
+ */
+public class ServerLifecycle {
+
+    public enum State {
+        DOWN, STARTING, UP, STOPPING, FAILED;
+
+        public String status() {
+            return name().toLowerCase();
+        }
+
+        /**
+         * Returns the state for an event status, or null if the status is not a lifecycle state.
+         */
+        public static State of(String status) {
+            for (State state : values()) {
+                if (state.status().equalsIgnoreCase(status)) {
+                    return state;
+                }
+            }
+            return null;
+        }
+    }
+
+    private record Snapshot(State state, boolean inFlight) {
+    }
+
+    private final EventLogger eventLogger;
+    private final Clock clock;
+    private final AtomicReference<Snapshot> current = new AtomicReference<>();
+    // Guards every transition and orders journal appends the same way as the transitions they record
+    private final Object journalLock = new Object();
+
+    public ServerLifecycle(EventLogger eventLogger, Clock clock) {
+        this.eventLogger = eventLogger;
+        this.clock = clock;
+    }
+
+    public State state() {
+        return snapshot().state();
+    }
+
+    /**
+     * Begins a transition into {@code transitional} if the current state is in {@code from} and no transition is
+     * in flight, and journals it.
+     *
+     * @return null if the transition began, otherwise the state that prevented it
+     */
+    public State begin(State transitional, Set<State> from) {
+        Snapshot observed = snapshot();
+        if (!allows(observed, from)) {
+            return observed.state();
+        }
+        synchronized (journalLock) {
+            observed = current.get();
+            if (!allows(observed, from)) {
+                return observed.state();
+            }
+            current.set(new Snapshot(transitional, true));
+            journal(transitional);
+        }
+        return null;
+    }
+
+    /**
+     * Completes the in-flight {@code transitional} state with {@code result} and journals it.
+     */
+    public void complete(State transitional, State result) {
+        synchronized (journalLock) {
+            Snapshot observed = current.get();
+            if (observed == null || observed.state() != transitional || !observed.inFlight()) {
+                throw new IllegalStateException("No " + transitional.status() + " transition in flight");
+            }
+            current.set(new Snapshot(result, false));
+            journal(result);
+        }
+    }
+
+    private static boolean allows(Snapshot snapshot, Set<State> from) {
+        return !snapshot.inFlight() && from.contains(snapshot.state());
+    }
+
+    private Snapshot snapshot() {
+        Snapshot snapshot = current.get();
+        if (snapshot == null) {
+            Event last = eventLogger.getLastEvent();
+            State recovered = last == null ? null : State.of(last.status());
+            current.compareAndSet(null, new Snapshot(recovered == null ? State.DOWN : recovered, false));
+            snapshot = current.get();
+        }
+        return snapshot;
+    }
+
+    private void journal(State state) {
+        eventLogger.logEvent(new Event(state.status(), LocalDateTime.now(clock)));
+    }
+}
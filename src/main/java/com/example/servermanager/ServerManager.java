@@ -1,95 +1,147 @@
 package com.example.servermanager;
 
+import com.example.servermanager.ServerLifecycle.State;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.Set;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 public class ServerManager {
     private static final String EVENT_FILE = "events.log";
     private static final String STATUS_UP = "up";
-    private static final String STATUS_DOWN = "down";
-    private static final String STATUS_FAILED = "failed";
-    private static final String STATUS_STARTING = "starting";
-    private static final String STATUS_STOPPING = "stopping";
+    // A "starting" or "stopping" state only matches here when recovered from the log of an interrupted run
+    private static final Set<State> UP_FROM = EnumSet.of(State.DOWN, State.FAILED, State.STARTING);
+    private static final Set<State> DOWN_FROM = EnumSet.of(State.UP, State.STARTING, State.STOPPING);
     private static final int MIN_PAUSE_MS = 3000;
     private static final int ADDITIONAL_PAUSE_RANGE = 7000;
+    private static final long SHUTDOWN_RETRY_MS = 1000;
     private static final String DATE_TIME_PATTERN = "T00:00:00";
     private static final String DATE_TIME_PATTERN_END = "T23:59:59";
     private static final String SORT_DESC = "desc";
+    private static final String READ_ONLY_MESSAGE = "Read-only follower, run this command on the leader";
+    private static final int DEFAULT_LOAD_CYCLES = 10000;
+    private static final long LOAD_SEED = 42;
+    private static final String LOAD_DIRECTORY_PREFIX = "servermanager-load";
     private final Random random;
-    protected final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
+    private final PrintStream out;
+    protected final Clock clock;
+    // Daemon threads, a pending scheduled shutdown must not keep the JVM running after exit
+    protected final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1, runnable -> {
+        Thread thread = new Thread(runnable, "server-manager-scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     protected EventLogger eventLogger;
+    private volatile boolean readOnly;
+    private volatile ServerLifecycle lifecycle;
+    private ScheduledFuture<?> scheduledShutdown;
 
     public ServerManager() {
-        eventLogger = new EventLogger(EVENT_FILE);
-        random = new Random();
+        this(new EventLogger(EVENT_FILE), Clock.systemDefaultZone(), new Random());
+    }
+
+    /**
+     * Creates a manager with its own time and randomness sources, e.g. a {@link VirtualClock} and a seeded
+     * {@link Random} for simulations.
+     */
+    public ServerManager(EventLogger eventLogger, Clock clock, Random random) {
+        this(eventLogger, clock, random, null);
+    }
+
+    /**
+     * Creates a manager that prints to {@code out} instead of the current {@link System#out}, e.g. a discarding
+     * stream for simulated servers.
+     */
+    public ServerManager(EventLogger eventLogger, Clock clock, Random random, PrintStream out) {
+        this.eventLogger = eventLogger;
+        this.clock = clock;
+        this.random = random;
+        this.out = out;
+    }
+
+    /**
+     * Marks this manager as serving a replicated copy of the log: {@code up} and {@code down} are rejected.
+     */
+    public void setReadOnly(boolean readOnly) {
+        this.readOnly = readOnly;
     }
 
     public void status() {
-        List<Event> events = eventLogger.getAllEvents();
-        if (events.isEmpty()) {
-            System.out.println("No events found.");
+        Event lastEvent = eventLogger.getLastEvent();
+        if (lastEvent == null) {
+            out().println("No events found.");
             return;
         }
-        Event lastEvent = events.getLast();
-        System.out.println("Last event: " + lastEvent.status() + " at " + lastEvent.timestamp());
+        out().println("Last event: " + lastEvent.status() + " at " + lastEvent.timestamp());
         if (STATUS_UP.equalsIgnoreCase(lastEvent.status())) {
             // Calculate uptime from the last "up" event to now
             LocalDateTime upTime = lastEvent.timestamp();
-            Duration uptime = Duration.between(upTime, LocalDateTime.now());
+            Duration uptime = Duration.between(upTime, LocalDateTime.now(clock));
             long hours = uptime.toHours();
             long minutes = uptime.toMinutes() % 60;
             long seconds = uptime.getSeconds() % 60;
-            System.out.printf("Uptime: %02d:%02d:%02d%n", hours, minutes, seconds);
+            out().printf("Uptime: %02d:%02d:%02d%n", hours, minutes, seconds);
         }
     }
 
     public void up(String before) {
-        // Check if the server is already up or stopping
-        List<Event> events = eventLogger.getAllEvents();
-        if (!events.isEmpty()) {
-            Event lastEvent = events.getLast();
-            if (STATUS_UP.equalsIgnoreCase(lastEvent.status())) {
-                System.out.println("Already up");
+        if (readOnly) {
+            out().println(READ_ONLY_MESSAGE);
+            return;
+        }
+        // Validate the --before parameter before any state change
+        LocalDateTime shutdownTime = null;
+        long delay = 0;
+        if (before != null) {
+            try {
+                shutdownTime = LocalDateTime.parse(before);
+            } catch (DateTimeParseException e) {
+                out().println("Invalid date format for --before. Use yyyy-MM-ddThh:mm");
                 return;
             }
-            if (STATUS_STOPPING.equalsIgnoreCase(lastEvent.status())) {
-                System.out.println("Server is currently stopping, please wait");
+            delay = Duration.between(LocalDateTime.now(clock), shutdownTime).toMillis();
+            if (delay <= 0) {
+                out().println("Shutdown time must be in the future");
                 return;
             }
         }
 
-        LocalDateTime now = LocalDateTime.now();
-        Event startingEvent = new Event(STATUS_STARTING, now);
-        eventLogger.logEvent(startingEvent);
-        System.out.println("Starting…");
+        // Atomically move to "starting" unless the server is already up or a transition is in progress
+        State rejected = lifecycle().begin(State.STARTING, UP_FROM);
+        if (rejected != null) {
+            printRejected(rejected);
+            return;
+        }
+        out().println("Starting…");
 
         // If the --before parameter is provided, schedule auto shutdown
-        if (before != null) {
+        if (shutdownTime != null) {
             try {
-                LocalDateTime shutdownTime = LocalDateTime.parse(before);
-                long delay = Duration.between(LocalDateTime.now(), shutdownTime).toSeconds();
-                
-                if (delay <= 0) {
-                    System.out.println("Shutdown time must be in the future");
-                    return;
-                }
-
-                scheduler.schedule(() -> {
-                    System.out.println("Executing scheduled shutdown...");
-                    down();
-                }, delay, TimeUnit.SECONDS);
-                
-                System.out.println("Auto shutdown scheduled at " + shutdownTime);
-            } catch (DateTimeParseException e) {
-                System.out.println("Invalid date format for --before. Use yyyy-MM-ddThh:mm");
-                return;
+                scheduleShutdown(delay);
+                out().println("Auto shutdown scheduled at " + shutdownTime);
+            } catch (RejectedExecutionException e) {
+                // The scheduler is stopped once the manager has been shut down
+                out().println("Auto shutdown could not be scheduled");
             }
         }
 
@@ -97,52 +149,86 @@ public class ServerManager {
         randomPause();
 
         // Randomly decide if server goes up or fails to start
-        String result = random.nextBoolean() ? STATUS_UP : STATUS_FAILED;
-        Event resultEvent = new Event(result, LocalDateTime.now());
-        eventLogger.logEvent(resultEvent);
-        if (STATUS_UP.equalsIgnoreCase(result)) {
-            System.out.println("Started");
+        State result = random.nextBoolean() ? State.UP : State.FAILED;
+        lifecycle().complete(State.STARTING, result);
+        if (result == State.UP) {
+            out().println("Started");
         } else {
-            System.out.println("Failed");
+            out().println("Failed");
         }
     }
 
     public void down() {
-        // Check if the server is already down or in failed state
-        List<Event> events = eventLogger.getAllEvents();
-        if (!events.isEmpty()) {
-            Event lastEvent = events.getLast();
-            if (STATUS_DOWN.equalsIgnoreCase(lastEvent.status())) {
-                System.out.println("Already down");
-                return;
-            }
-            if (STATUS_FAILED.equalsIgnoreCase(lastEvent.status())) {
-                System.out.println("Server is in failed state, no need to stop");
-                return;
-            }
+        if (readOnly) {
+            out().println(READ_ONLY_MESSAGE);
+            return;
         }
-        // Log "stopping" event
-        LocalDateTime now = LocalDateTime.now();
-        Event stoppingEvent = new Event(STATUS_STOPPING, now);
-        eventLogger.logEvent(stoppingEvent);
-        System.out.println("Stopping…");
+        State rejected = stop();
+        if (rejected != null) {
+            printRejected(rejected);
+        }
+    }
+
+    /**
+     * Stops the server.
+     *
+     * @return null if the server was stopped or failed to stop, otherwise the state that prevented stopping it
+     */
+    private State stop() {
+        // Atomically move to "stopping" unless the server is already down, failed or in another transition
+        State rejected = lifecycle().begin(State.STOPPING, DOWN_FROM);
+        if (rejected != null) {
+            return rejected;
+        }
+        out().println("Stopping…");
 
         // Simulate random pause (3-10 seconds)
         randomPause();
 
         // Randomly decide if server goes down or fails to stop
-        String result = random.nextBoolean() ? STATUS_DOWN : STATUS_FAILED;
-        Event resultEvent = new Event(result, LocalDateTime.now());
-        eventLogger.logEvent(resultEvent);
-        if (STATUS_DOWN.equalsIgnoreCase(result)) {
-            shutdown();
-            System.out.println("Stopped");
+        State result = random.nextBoolean() ? State.DOWN : State.FAILED;
+        lifecycle().complete(State.STOPPING, result);
+        if (result == State.DOWN) {
+            // The scheduler keeps running for later tasks, e.g. alert timeouts
+            cancelScheduledShutdown();
+            out().println("Stopped");
         } else {
-            System.out.println("Failed");
+            out().println("Failed");
         }
+        return null;
+    }
+
+    private void printRejected(State state) {
+        switch (state) {
+            case UP -> out().println("Already up");
+            case DOWN -> out().println("Already down");
+            case FAILED -> out().println("Server is in failed state, no need to stop");
+            case STARTING -> out().println("Server is currently starting, please wait");
+            case STOPPING -> out().println("Server is currently stopping, please wait");
+        }
+    }
+
+    /**
+     * Lifecycle state machine, created on first use so that subclasses can replace the event logger first.
+     */
+    protected ServerLifecycle lifecycle() {
+        ServerLifecycle current = lifecycle;
+        if (current == null) {
+            synchronized (this) {
+                if (lifecycle == null) {
+                    lifecycle = new ServerLifecycle(eventLogger, clock);
+                }
+                current = lifecycle;
+            }
+        }
+        return current;
     }
 
     public void history(String fromStr, String toStr, String sort, String statusFilter) {
+        history(fromStr, toStr, sort, statusFilter, null);
+    }
+
+    public void history(String fromStr, String toStr, String sort, String statusFilter, String limitStr) {
         LocalDateTime from = null;
         LocalDateTime to = null;
         try {
@@ -153,29 +239,324 @@ public class ServerManager {
                 to = LocalDateTime.parse(toStr + DATE_TIME_PATTERN_END);
             }
         } catch (Exception e) {
-            System.out.println("Invalid date format. Use yyyy-MM-dd.");
+            out().println("Invalid date format. Use yyyy-MM-dd.");
             return;
         }
+        int limit = 0;
+        if (limitStr != null) {
+            try {
+                limit = Integer.parseInt(limitStr);
+            } catch (NumberFormatException e) {
+                limit = -1;
+            }
+            if (limit <= 0) {
+                out().println("Invalid limit. Use a positive number.");
+                return;
+            }
+        }
         boolean asc = !SORT_DESC.equalsIgnoreCase(sort);
-        List<Event> filtered = eventLogger.filterEvents(statusFilter, from, to, asc);
-        if (filtered.isEmpty()) {
-            System.out.println("No events found");
-        } else {
-            for (Event event : filtered) {
-                System.out.println(event.status() + " at " + event.timestamp());
+        // Summaries of tiered history precede the raw events
+        List<PeriodSummary> summaries = new ArrayList<>(eventLogger.summaries(statusFilter, from, to));
+        long printed = 0;
+        if (asc) {
+            printed += printSummaries(summaries, limit);
+        }
+        // Raw events before the horizon are left over from an interrupted tiering pass, the summaries cover them
+        LocalDateTime horizon = eventLogger.summaryHorizon();
+        LocalDateTime rawFrom = horizon != null && (from == null || from.isBefore(horizon)) ? horizon : from;
+        if ((limit == 0 || printed < limit) && (rawFrom == null || to == null || !rawFrom.isAfter(to))) {
+            printed += eventLogger.forEachEvent(statusFilter, rawFrom, to, asc,
+                    limit == 0 ? 0 : (int) (limit - printed), this::printEvent);
+        }
+        if (!asc && (limit == 0 || printed < limit)) {
+            Collections.reverse(summaries);
+            printed += printSummaries(summaries, limit == 0 ? 0 : (int) (limit - printed));
+        }
+        if (printed == 0) {
+            out().println("No events found");
+        }
+    }
+
+    private int printSummaries(List<PeriodSummary> summaries, int limit) {
+        int count = limit == 0 ? summaries.size() : Math.min(limit, summaries.size());
+        for (PeriodSummary summary : summaries.subList(0, count)) {
+            StringBuilder line = new StringBuilder("summary ").append(summary.start()).append(" to ")
+                    .append(summary.end()).append(':');
+            summary.durations().entrySet().stream()
+                    .sorted(Map.Entry.comparingByKey())
+                    .forEach(entry -> line.append(' ').append(entry.getKey().status()).append(' ')
+                            .append(formatDuration(entry.getValue())).append(','));
+            line.append(' ').append(summary.transitions()).append(" transitions, ")
+                    .append(summary.failures()).append(" failures");
+            out().println(line);
+        }
+        return count;
+    }
+
+    /**
+     * Prints how long the server spent in each state in the range, and how often it changed state and failed,
+     * answering from the summaries of tiered history and the raw events.
+     */
+    public void stats(String fromStr, String toStr) {
+        LocalDateTime from = null;
+        LocalDateTime to = null;
+        try {
+            if (fromStr != null) {
+                from = LocalDateTime.parse(fromStr + DATE_TIME_PATTERN);
+            }
+            if (toStr != null) {
+                to = LocalDateTime.parse(toStr + DATE_TIME_PATTERN_END);
+            }
+        } catch (Exception e) {
+            out().println("Invalid date format. Use yyyy-MM-dd.");
+            return;
+        }
+        PeriodSummary stats = eventLogger.stats(from, to, LocalDateTime.now(clock));
+        if (stats == null) {
+            out().println("No events found");
+            return;
+        }
+        out().println("Statistics from " + stats.start() + " to " + stats.end());
+        Duration tracked = stats.durations().values().stream().reduce(Duration.ZERO, Duration::plus);
+        for (State state : State.values()) {
+            Duration duration = stats.duration(state);
+            if (!duration.isZero()) {
+                out().printf("%s: %s (%.2f%%)%n", state.status(), formatDuration(duration),
+                        100.0 * duration.toMillis() / Math.max(1, tracked.toMillis()));
             }
         }
+        out().println("Transitions: " + stats.transitions() + ", failures: " + stats.failures());
+    }
+
+    private static String formatDuration(Duration duration) {
+        return String.format("%02d:%02d:%02d", duration.toHours(), duration.toMinutesPart(), duration.toSecondsPart());
+    }
+
+    public void export(String fromStr, String toStr, String out, String formatStr, String statusFilter) {
+        if (out == null) {
+            out().println("Missing --out file.");
+            return;
+        }
+        EventExporter.Format format = formatStr == null ? EventExporter.Format.CSV : EventExporter.Format.of(formatStr);
+        if (format == null) {
+            out().println("Unsupported export format. Use csv or ndjson.");
+            return;
+        }
+        LocalDateTime from = null;
+        LocalDateTime to = null;
+        try {
+            if (fromStr != null) {
+                from = LocalDateTime.parse(fromStr + DATE_TIME_PATTERN);
+            }
+            if (toStr != null) {
+                to = LocalDateTime.parse(toStr + DATE_TIME_PATTERN_END);
+            }
+        } catch (Exception e) {
+            out().println("Invalid date format. Use yyyy-MM-dd.");
+            return;
+        }
+        try {
+            long bytes = eventLogger.exportEvents(from, to, statusFilter, format, Path.of(out));
+            out().println("Exported " + bytes + " bytes to " + out);
+        } catch (IOException e) {
+            out().println("Export failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the state the server was in at {@code time}, or null if it is before the first logged event or in the
+     * summarized history.
+     */
+    public StateTimeline.Interval stateAt(LocalDateTime time) {
+        return eventLogger.statesAt(List.of(time)).getFirst();
+    }
+
+    /**
+     * Returns the state the server was in at each of {@code times}, in the same order.
+     */
+    public List<StateTimeline.Interval> statesAt(List<LocalDateTime> times) {
+        return eventLogger.statesAt(times);
+    }
+
+    /**
+     * Prints the state the server was in at each of the given timestamps.
+     */
+    public void at(List<String> timestamps) {
+        if (timestamps.isEmpty()) {
+            out().println("Specify one or more timestamps, e.g. at 2024-01-01T03:12");
+            return;
+        }
+        List<LocalDateTime> times = new ArrayList<>();
+        for (String timestamp : timestamps) {
+            try {
+                times.add(LocalDateTime.parse(timestamp));
+            } catch (DateTimeParseException e) {
+                out().println("Invalid timestamp " + timestamp + ". Use yyyy-MM-ddThh:mm[:ss]");
+                return;
+            }
+        }
+        List<StateTimeline.Interval> intervals = statesAt(times);
+        for (int i = 0; i < times.size(); i++) {
+            StateTimeline.Interval interval = intervals.get(i);
+            PeriodSummary summary = interval == null ? eventLogger.summaryAt(times.get(i)) : null;
+            if (summary != null) {
+                out().println(times.get(i) + ": summarized in " + summary.start() + " to " + summary.end() + ", "
+                        + summary.endState().status() + " at its end");
+            } else if (interval == null) {
+                out().println(times.get(i) + ": no events logged yet");
+            } else {
+                out().println(times.get(i) + ": " + interval.status() + " since " + interval.from()
+                        + (interval.until() == null ? "" : " until " + interval.until()));
+            }
+        }
+    }
+
+    /**
+     * Merges event logs from other hosts into the log, reporting lines that fail validation.
+     */
+    public void importEvents(List<String> files) {
+        if (files.isEmpty()) {
+            out().println("Specify the files to import.");
+            return;
+        }
+        if (readOnly) {
+            out().println(READ_ONLY_MESSAGE);
+            return;
+        }
+        try {
+            EventImporter.Report report = new EventImporter(eventLogger)
+                    .importFiles(files.stream().map(Path::of).toList());
+            for (EventImporter.LineError error : report.errors()) {
+                out().println("Rejected " + error);
+            }
+            if (report.rejected() > report.errors().size()) {
+                out().println("... " + (report.rejected() - report.errors().size()) + " more rejected lines");
+            }
+            out().println("Imported " + report.imported() + " events, rejected " + report.rejected() + " lines");
+            if (report.olderThanLog() > 0) {
+                out().println("Merged " + report.olderThanLog()
+                        + " events older than the last logged event into the log at their timestamp position");
+            }
+            if (report.summarized() > 0) {
+                out().println("Skipped " + report.summarized()
+                        + " events older than the summarized history, their periods are only kept as summaries");
+            }
+        } catch (IOException e) {
+            out().println("Import failed: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Runs the load generator against simulated servers with a virtual clock and prints its report.
+     */
+    public void load(String serversStr, String cyclesStr) {
+        int servers;
+        int cycles;
+        try {
+            servers = serversStr == null ? 1 : Integer.parseInt(serversStr);
+            cycles = cyclesStr == null ? DEFAULT_LOAD_CYCLES : Integer.parseInt(cyclesStr);
+        } catch (NumberFormatException e) {
+            servers = -1;
+            cycles = -1;
+        }
+        if (servers <= 0 || cycles <= 0) {
+            out().println("Invalid --servers or --cycles. Use positive numbers.");
+            return;
+        }
+        Path directory = null;
+        try {
+            directory = Files.createTempDirectory(LOAD_DIRECTORY_PREFIX);
+            out().println("Running " + cycles + " up/down cycles on " + servers + " simulated server(s) in "
+                    + directory);
+            LoadGenerator.Report report = new LoadGenerator(directory, LOAD_SEED).run(servers, cycles);
+            out().printf("Events: %d in %d ms (%.0f events/s), simulated time %s%n", report.events(),
+                    report.wallTime().toMillis(), report.eventsPerSecond(), report.simulatedTime());
+            out().println("Write latency: " + report.writeLatency().summary());
+            out().println("Query latency: " + report.queryLatency().summary());
+        } catch (IOException e) {
+            out().println("Load generation failed: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (directory != null) {
+                deleteRecursively(directory);
+            }
+        }
+    }
+
+    private static void deleteRecursively(Path directory) {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        } catch (IOException e) {
+            System.err.println("Error deleting " + directory + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Prints matching events as they are appended to the log until the returned follower is closed.
+     */
+    public EventFollower followHistory(String statusFilter) {
+        EventFollower follower = new EventFollower(eventLogger, statusFilter, this::printEvent);
+        follower.start();
+        out().println("Following events, press Enter to stop");
+        return follower;
+    }
+
+    private void printEvent(Event event) {
+        out().println(event.status() + " at " + event.timestamp());
+    }
+
+    private PrintStream out() {
+        return out != null ? out : System.out;
     }
 
     protected void randomPause() {
-        int pause = MIN_PAUSE_MS + random.nextInt(ADDITIONAL_PAUSE_RANGE);
+        pause(MIN_PAUSE_MS + random.nextInt(ADDITIONAL_PAUSE_RANGE));
+    }
+
+    /**
+     * Waits for the given time. Simulations override this to advance their virtual clock instead.
+     */
+    protected void pause(long millis) {
         try {
-            Thread.sleep(pause);
+            Thread.sleep(millis);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
         }
     }
 
+    private synchronized void scheduleShutdown(long delay) {
+        cancelScheduledShutdown();
+        scheduledShutdown = scheduler.schedule(this::scheduledDown, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void scheduledDown() {
+        out().println("Executing scheduled shutdown...");
+        State rejected = stop();
+        if (rejected == State.STARTING || rejected == State.STOPPING) {
+            // A manual up or down is in progress, try again once it has completed instead of losing the shutdown
+            out().println("Scheduled shutdown deferred until the current transition completes");
+            try {
+                scheduleShutdown(SHUTDOWN_RETRY_MS);
+            } catch (RejectedExecutionException e) {
+                out().println("Auto shutdown could not be rescheduled");
+            }
+        } else if (rejected != null) {
+            printRejected(rejected);
+        }
+    }
+
+    private synchronized void cancelScheduledShutdown() {
+        if (scheduledShutdown != null) {
+            scheduledShutdown.cancel(false);
+            scheduledShutdown = null;
+        }
+    }
+
     public void shutdown() {
         scheduler.shutdownNow();
         try {
@@ -0,0 +1,210 @@
+package com.example.servermanager;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Index of the intervals the server spent in each state, for point-in-time queries.
+ * <p>
+ * Consecutive events with the same status are merged into one interval that lasts until the next status change,
+ * and the interval start times are kept in a sorted array, so the state at a given time is found with a binary
+ * search. The index is built on first use and extended with the events appended to the log since the previous
+ * query. Events appended out of chronological order (e.g. by an import) trigger a rebuild.
+ */
+public class StateTimeline {
+    private static final int READ_BUFFER_SIZE = 1 << 20;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    // Times are kept as nanoseconds since the epoch, later ones saturate
+    private static final long MAX_SECONDS = Long.MAX_VALUE / NANOS_PER_SECOND - 1;
+
+    /**
+     * The server was in {@code status} from {@code from} until {@code until}, which is null for the current state.
+     */
+    public record Interval(String status, LocalDateTime from, LocalDateTime until) {
+    }
+
+    private final Path logPath;
+    private long[] starts = new long[INITIAL_CAPACITY];
+    private String[] statuses = new String[INITIAL_CAPACITY];
+    private int size;
+    private long length;
+    private long lastEvent = Long.MIN_VALUE;
+
+    public StateTimeline(Path logPath) {
+        this.logPath = logPath;
+    }
+
+    /**
+     * Returns the interval containing {@code time}, or null if it is before the first logged event.
+     */
+    public synchronized Interval at(LocalDateTime time) throws IOException {
+        refresh();
+        return interval(floor(encode(time), 0));
+    }
+
+    /**
+     * Looks up many times in one pass over the index, in the order of the sorted times. The result is in the order
+     * of {@code times}, with null for times before the first logged event.
+     */
+    public synchronized List<Interval> at(List<LocalDateTime> times) throws IOException {
+        refresh();
+        Integer[] order = new Integer[times.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparing(times::get));
+        Interval[] result = new Interval[order.length];
+        int position = 0;
+        for (int i : order) {
+            // Later times can only fall into the same or later intervals
+            int found = floor(encode(times.get(i)), position);
+            if (found >= 0) {
+                position = found;
+            }
+            result[i] = interval(found);
+        }
+        return Arrays.asList(result);
+    }
+
+    /**
+     * Drops the index, e.g. after the log was rewritten, so that the next query rebuilds it.
+     */
+    synchronized void invalidate() {
+        clear();
+    }
+
+    synchronized int intervalCount() {
+        return size;
+    }
+
+    /**
+     * Returns the index of the last interval starting at or before {@code time}, searching from {@code fromIndex},
+     * or -1 if there is none.
+     */
+    private int floor(long time, int fromIndex) {
+        int low = fromIndex;
+        int high = size - 1;
+        int found = -1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (starts[middle] <= time) {
+                found = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return found;
+    }
+
+    private Interval interval(int index) {
+        if (index < 0) {
+            return null;
+        }
+        return new Interval(statuses[index], decode(starts[index]), index + 1 < size ? decode(starts[index + 1]) : null);
+    }
+
+    private void refresh() throws IOException {
+        if (!Files.exists(logPath)) {
+            clear();
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(logPath, StandardOpenOption.READ)) {
+            if (channel.size() < length) {
+                clear();
+            }
+            List<Event> appended = read(channel, length);
+            boolean ordered = true;
+            long last = lastEvent;
+            for (Event event : appended) {
+                long time = encode(event.timestamp());
+                ordered &= time >= last;
+                last = time;
+            }
+            if (ordered) {
+                appended.forEach(this::append);
+                return;
+            }
+            clear();
+            List<Event> events = read(channel, 0);
+            events.sort(Comparator.comparing(Event::timestamp));
+            events.forEach(this::append);
+        }
+    }
+
+    /**
+     * Reads the complete lines from {@code offset} to the end of the log and advances {@link #length} past them.
+     */
+    private List<Event> read(FileChannel channel, long offset) throws IOException {
+        List<Event> events = new ArrayList<>();
+        ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        byte[] bytes = buffer.array();
+        long position = offset;
+        while (true) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read <= 0) {
+                break;
+            }
+            int lineStart = 0;
+            for (int i = 0; i < buffer.position(); i++) {
+                if (bytes[i] == '\n') {
+                    Event event = Event.fromCSV(bytes, lineStart, i - lineStart);
+                    if (event != null) {
+                        events.add(event);
+                    }
+                    lineStart = i + 1;
+                }
+            }
+            if (lineStart == 0 && !buffer.hasRemaining()) {
+                throw new IOException("Line longer than " + READ_BUFFER_SIZE + " bytes at offset " + position);
+            }
+            // Keep the partial last line for the next read
+            position += lineStart;
+            buffer.limit(buffer.position()).position(lineStart);
+            buffer.compact();
+        }
+        length = position;
+        return events;
+    }
+
+    private void clear() {
+        size = 0;
+        length = 0;
+        lastEvent = Long.MIN_VALUE;
+    }
+
+    private void append(Event event) {
+        lastEvent = encode(event.timestamp());
+        if (size > 0 && statuses[size - 1].equals(event.status())) {
+            return;
+        }
+        if (size == starts.length) {
+            starts = Arrays.copyOf(starts, size * 2);
+            statuses = Arrays.copyOf(statuses, size * 2);
+        }
+        starts[size] = lastEvent;
+        statuses[size] = event.status();
+        size++;
+    }
+
+    private static long encode(LocalDateTime time) {
+        long seconds = Math.max(-MAX_SECONDS, Math.min(MAX_SECONDS, time.toEpochSecond(ZoneOffset.UTC)));
+        return seconds * NANOS_PER_SECOND + time.getNano();
+    }
+
+    private static LocalDateTime decode(long time) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(time, NANOS_PER_SECOND),
+                (int) Math.floorMod(time, NANOS_PER_SECOND), ZoneOffset.UTC);
+    }
+}
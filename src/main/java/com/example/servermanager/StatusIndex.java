@@ -0,0 +1,400 @@
+package com.example.servermanager;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.zip.CRC32;
+
+/**
+ * Block index over the event log, persisted in a sidecar file next to it ({@code events.log.idx}).
+ * <p>
+ * The log is split into blocks of {@link #BLOCK_RECORDS} lines. For every block the index keeps its byte range,
+ * the min/max event timestamp and one bit set per status value, where bit {@code i} marks the {@code i}-th line
+ * of the block. Queries skip blocks that have no bit for the requested status or whose time range does not
+ * overlap the requested one, and only parse the lines whose bit is set. Each block also records whether its lines
+ * are in timestamp order, so {@link #isChronological} can tell whether the whole log is.
+ * <p>
+ * Only complete blocks are written to the sidecar. The trailing partial block is rebuilt in memory on each
+ * query by scanning the bytes appended after the last complete block.
+ */
+@Slf4j
+public class StatusIndex {
+    static final int BLOCK_RECORDS = 1024;
+    private static final String SIDECAR_SUFFIX = ".idx";
+    private static final int MAGIC = 0x53494458;
+    private static final int VERSION = 2;
+    private static final int CHECK_BYTES = 64;
+    private static final int SCAN_BUFFER_SIZE = 1 << 20;
+
+    private final Path logPath;
+    private final Path indexPath;
+    private final List<Block> blocks = new ArrayList<>();
+    private Block tail;
+    private long headCrc;
+    private boolean loaded;
+
+    public StatusIndex(Path logPath) {
+        this.logPath = logPath;
+        this.indexPath = logPath.resolveSibling(logPath.getFileName() + SIDECAR_SUFFIX);
+    }
+
+    /**
+     * Returns events in log order whose status equals {@code status} (if not null) and whose timestamp lies
+     * within {@code [from, to]} (bounds are optional).
+     */
+    public List<Event> query(String status, LocalDateTime from, LocalDateTime to) throws IOException {
+        List<Event> result = new ArrayList<>();
+        forEach(status, from, to, result::add);
+        return result;
+    }
+
+    /**
+     * Passes the events {@link #query} would return to {@code consumer} in log order, until it returns false.
+     */
+    public synchronized void forEach(String status, LocalDateTime from, LocalDateTime to,
+                                    Predicate<Event> consumer) throws IOException {
+        if (!Files.exists(logPath)) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(logPath, StandardOpenOption.READ)) {
+            refresh(channel);
+            ByteBuffer buffer = null;
+            for (Block block : allBlocks()) {
+                BitSet bits = status == null ? null : block.statuses.get(status);
+                if ((status != null && bits == null) || !block.overlaps(from, to)) {
+                    continue;
+                }
+                int length = (int) (block.end - block.start);
+                if (buffer == null || buffer.capacity() < length) {
+                    buffer = ByteBuffer.allocate(length);
+                }
+                buffer.clear().limit(length);
+                readFully(channel, buffer, block.start);
+                if (!collect(buffer.array(), length, bits, status, from, to, consumer)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns whether the timestamps of the log never decrease from one line to the next, which readers that take
+     * the reverse log order for newest first rely on. The clock can step back, e.g. when daylight saving time ends.
+     */
+    public synchronized boolean isChronological() throws IOException {
+        if (!Files.exists(logPath)) {
+            return true;
+        }
+        try (FileChannel channel = FileChannel.open(logPath, StandardOpenOption.READ)) {
+            refresh(channel);
+        }
+        LocalDateTime previous = null;
+        for (Block block : allBlocks()) {
+            if (!block.ordered || previous != null && block.min != null && block.min.isBefore(previous)) {
+                return false;
+            }
+            if (block.max != null) {
+                previous = block.max;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Drops the index and its sidecar, e.g. after the log was rewritten, so that the next query rebuilds it.
+     */
+    public synchronized void invalidate() throws IOException {
+        blocks.clear();
+        tail = null;
+        loaded = true;
+        Files.deleteIfExists(indexPath);
+    }
+
+    /**
+     * Number of complete blocks persisted in the sidecar.
+     */
+    public synchronized int sealedBlockCount() {
+        return blocks.size();
+    }
+
+    private List<Block> allBlocks() {
+        if (tail == null) {
+            return blocks;
+        }
+        List<Block> all = new ArrayList<>(blocks.size() + 1);
+        all.addAll(blocks);
+        all.add(tail);
+        return all;
+    }
+
+    private void refresh(FileChannel channel) throws IOException {
+        if (!loaded) {
+            load();
+            loaded = true;
+        }
+        long size = channel.size();
+        if (!blocks.isEmpty() && !isConsistent(channel, size)) {
+            log.info("Event index {} is stale, rebuilding", indexPath);
+            blocks.clear();
+            Files.deleteIfExists(indexPath);
+        }
+        tail = null;
+        long covered = blocks.isEmpty() ? 0 : blocks.getLast().end;
+        if (covered < size) {
+            scan(channel, covered, size);
+        }
+    }
+
+    private boolean isConsistent(FileChannel channel, long size) throws IOException {
+        Block last = blocks.getLast();
+        if (size < last.end) {
+            return false;
+        }
+        return headCrc == crc(channel, 0, Math.min(CHECK_BYTES, blocks.getFirst().end))
+                && last.tailCrc == crc(channel, Math.max(0, last.end - CHECK_BYTES), last.end);
+    }
+
+    private void scan(FileChannel channel, long from, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        byte[] line = new byte[128];
+        int lineLength = 0;
+        Block block = new Block(from);
+        long position = from;
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            byte[] bytes = buffer.array();
+            for (int i = 0; i < read; i++) {
+                if (bytes[i] != '\n') {
+                    if (lineLength == line.length) {
+                        line = Arrays.copyOf(line, line.length * 2);
+                    }
+                    line[lineLength++] = bytes[i];
+                    continue;
+                }
+                block.add(Event.fromCSV(line, 0, lineLength));
+                block.end = position + i + 1;
+                lineLength = 0;
+                if (block.count == BLOCK_RECORDS) {
+                    seal(channel, block);
+                    block = new Block(block.end);
+                }
+            }
+            position += read;
+        }
+        tail = block.count > 0 ? block : null;
+    }
+
+    private boolean collect(byte[] bytes, int length, BitSet bits, String status,
+                            LocalDateTime from, LocalDateTime to, Predicate<Event> consumer) {
+        int ordinal = 0;
+        int lineStart = 0;
+        int next = bits == null ? 0 : bits.nextSetBit(0);
+        for (int i = 0; i < length && next >= 0; i++) {
+            if (bytes[i] != '\n') {
+                continue;
+            }
+            if (ordinal == next) {
+                Event event = Event.fromCSV(bytes, lineStart, i - lineStart);
+                if (event != null && matches(event, status, from, to) && !consumer.test(event)) {
+                    return false;
+                }
+                next = bits == null ? next + 1 : bits.nextSetBit(ordinal + 1);
+            }
+            ordinal++;
+            lineStart = i + 1;
+        }
+        return true;
+    }
+
+    private static boolean matches(Event event, String status, LocalDateTime from, LocalDateTime to) {
+        return (status == null || status.equals(event.status()))
+                && (from == null || !event.timestamp().isBefore(from))
+                && (to == null || !event.timestamp().isAfter(to));
+    }
+
+    private void seal(FileChannel channel, Block block) throws IOException {
+        block.tailCrc = crc(channel, Math.max(0, block.end - CHECK_BYTES), block.end);
+        boolean first = blocks.isEmpty();
+        if (first) {
+            headCrc = crc(channel, 0, Math.min(CHECK_BYTES, block.end));
+        }
+        blocks.add(block);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(indexPath, StandardOpenOption.CREATE,
+                        first ? StandardOpenOption.TRUNCATE_EXISTING : StandardOpenOption.APPEND,
+                        StandardOpenOption.WRITE)))) {
+            if (first) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(headCrc);
+            }
+            block.write(out);
+        } catch (IOException e) {
+            // The in-memory index stays usable, the sidecar is rebuilt on the next start
+            System.err.println("Error writing event index: " + e.getMessage());
+            Files.deleteIfExists(indexPath);
+        }
+    }
+
+    private void load() {
+        if (!Files.exists(indexPath)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexPath)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("unsupported index format");
+            }
+            headCrc = in.readLong();
+            while (true) {
+                Block block;
+                try {
+                    block = Block.read(in);
+                } catch (EOFException e) {
+                    break;
+                }
+                blocks.add(block);
+            }
+        } catch (IOException e) {
+            log.info("Discarding unreadable event index {}: {}", indexPath, e.getMessage());
+            blocks.clear();
+        }
+    }
+
+    private static long crc(FileChannel channel, long from, long to) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) (to - from));
+        readFully(channel, buffer, from);
+        CRC32 crc = new CRC32();
+        crc.update(buffer.flip());
+        return crc.getValue();
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new EOFException("Event log is shorter than its index");
+            }
+            position += read;
+        }
+    }
+
+    private static final class Block {
+        private final long start;
+        private long end;
+        private int count;
+        private LocalDateTime min;
+        private LocalDateTime max;
+        private LocalDateTime last;
+        // Whether no line has an earlier timestamp than the one before it
+        private boolean ordered = true;
+        private long tailCrc;
+        private final Map<String, BitSet> statuses = new HashMap<>();
+
+        private Block(long start) {
+            this.start = start;
+            this.end = start;
+        }
+
+        private void add(Event event) {
+            int ordinal = count++;
+            if (event == null) {
+                return;
+            }
+            statuses.computeIfAbsent(event.status(), s -> new BitSet()).set(ordinal);
+            LocalDateTime timestamp = event.timestamp();
+            if (last != null && timestamp.isBefore(last)) {
+                ordered = false;
+            }
+            last = timestamp;
+            if (min == null || timestamp.isBefore(min)) {
+                min = timestamp;
+            }
+            if (max == null || timestamp.isAfter(max)) {
+                max = timestamp;
+            }
+        }
+
+        private boolean overlaps(LocalDateTime from, LocalDateTime to) {
+            if (min == null) {
+                return false;
+            }
+            return (from == null || !max.isBefore(from)) && (to == null || !min.isAfter(to));
+        }
+
+        private void write(DataOutputStream out) throws IOException {
+            out.writeLong(start);
+            out.writeLong(end);
+            out.writeInt(count);
+            out.writeLong(tailCrc);
+            out.writeBoolean(ordered);
+            out.writeBoolean(min != null);
+            if (min != null) {
+                writeTimestamp(out, min);
+                writeTimestamp(out, max);
+            }
+            out.writeInt(statuses.size());
+            for (Map.Entry<String, BitSet> entry : statuses.entrySet()) {
+                out.writeUTF(entry.getKey());
+                long[] words = entry.getValue().toLongArray();
+                out.writeInt(words.length);
+                for (long word : words) {
+                    out.writeLong(word);
+                }
+            }
+        }
+
+        private static Block read(DataInputStream in) throws IOException {
+            Block block = new Block(in.readLong());
+            block.end = in.readLong();
+            block.count = in.readInt();
+            block.tailCrc = in.readLong();
+            block.ordered = in.readBoolean();
+            if (in.readBoolean()) {
+                block.min = readTimestamp(in);
+                block.max = readTimestamp(in);
+            }
+            int statusCount = in.readInt();
+            for (int i = 0; i < statusCount; i++) {
+                String status = in.readUTF();
+                long[] words = new long[in.readInt()];
+                for (int w = 0; w < words.length; w++) {
+                    words[w] = in.readLong();
+                }
+                block.statuses.put(status, BitSet.valueOf(words));
+            }
+            return block;
+        }
+
+        private static void writeTimestamp(DataOutputStream out, LocalDateTime timestamp) throws IOException {
+            out.writeLong(timestamp.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(timestamp.getNano());
+        }
+
+        private static LocalDateTime readTimestamp(DataInputStream in) throws IOException {
+            return LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+        }
+    }
+}
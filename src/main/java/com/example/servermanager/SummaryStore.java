@@ -0,0 +1,88 @@
+package com.example.servermanager;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The {@link PeriodSummary}s that replaced old raw events, stored in chronological order in a file next to the
+ * event log ({@code events.log.summary}).
+ * <p>
+ * The summaries cover a contiguous range ending at the {@link #horizon()}. Statistics take everything before the
+ * horizon from the summaries and everything after it from the raw events.
+ */
+public class SummaryStore {
+    private static final String SUFFIX = ".summary";
+
+    private final Path path;
+    private List<PeriodSummary> summaries;
+    private FileTime loadedModified;
+
+    public SummaryStore(Path logPath) {
+        this.path = logPath.resolveSibling(logPath.getFileName() + SUFFIX);
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * All summaries in chronological order, reloaded when the file was changed by another logger.
+     */
+    public synchronized List<PeriodSummary> summaries() throws IOException {
+        if (!Files.exists(path)) {
+            summaries = List.of();
+            loadedModified = null;
+            return summaries;
+        }
+        FileTime modified = Files.getLastModifiedTime(path);
+        if (summaries == null || !modified.equals(loadedModified)) {
+            List<PeriodSummary> loaded = new ArrayList<>();
+            try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!line.isBlank()) {
+                        loaded.add(PeriodSummary.fromCSV(line));
+                    }
+                }
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Corrupt summary file " + path + ": " + e.getMessage(), e);
+            }
+            summaries = List.copyOf(loaded);
+            loadedModified = modified;
+        }
+        return summaries;
+    }
+
+    /**
+     * End of the summarized range, or null if nothing has been summarized.
+     */
+    public LocalDateTime horizon() throws IOException {
+        List<PeriodSummary> all = summaries();
+        return all.isEmpty() ? null : all.getLast().end();
+    }
+
+    /**
+     * Replaces the summaries, writing them to a temporary file that is then moved over the summary file.
+     */
+    public synchronized void replace(List<PeriodSummary> replacement) throws IOException {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+            for (PeriodSummary summary : replacement) {
+                writer.write(summary.toCSV());
+                writer.newLine();
+            }
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        summaries = List.copyOf(replacement);
+        loadedModified = Files.getLastModifiedTime(path);
+    }
+}
@@ -0,0 +1,256 @@
+package com.example.servermanager;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Background job that downsamples old history according to a {@link TieringPolicy}.
+ * <p>
+ * A pass summarizes the raw events between the {@link SummaryStore#horizon()} and the cutoff of the first tier into
+ * {@link PeriodSummary}s, rolls summaries older than the following tiers up into longer periods, and rewrites the
+ * log without the summarized events. The most recent event is always kept raw so that the current state can be
+ * read from the log. The log is scanned without blocking writers; only the final swap, which copies the lines
+ * appended during the pass, holds the logger lock.
+ * <p>
+ * The summaries are saved before the log is swapped, so a pass that stops in between leaves summarized raw events
+ * behind the horizon. Nothing else writes raw events before the horizon ({@link EventLogger#mergeEvents} skips
+ * them), so every pass drops the raw events older than the horizon along with the ones it summarizes.
+ */
+@Slf4j
+public class TieringJob implements Closeable {
+    private static final int READ_BUFFER_SIZE = 1 << 20;
+
+    private final EventLogger eventLogger;
+    private final TieringPolicy policy;
+    private final Clock clock;
+    private ScheduledExecutorService executor;
+
+    public record Report(long summarizedEvents, int summaries, LocalDateTime horizon) {
+    }
+
+    public TieringJob(EventLogger eventLogger, TieringPolicy policy, Clock clock) {
+        this.eventLogger = eventLogger;
+        this.policy = policy;
+        this.clock = clock;
+    }
+
+    /**
+     * Runs a pass now and then once per period of the first tier.
+     */
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "history-tiering");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = policy.tiers().getFirst().period().toMillis();
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                Report report = runOnce();
+                log.info("Tiering summarized {} events, {} summaries up to {}", report.summarizedEvents(),
+                        report.summaries(), report.horizon());
+            } catch (IOException | RuntimeException e) {
+                log.warn("History tiering failed", e);
+            }
+        }, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    /**
+     * Runs a single tiering pass at the current time of the clock.
+     */
+    public Report runOnce() throws IOException {
+        LocalDateTime now = LocalDateTime.now(clock);
+        SummaryStore store = eventLogger.summaryStore();
+        synchronized (store) {
+            List<PeriodSummary> summaries = new ArrayList<>(store.summaries());
+            LocalDateTime horizon = store.horizon();
+            Path logPath = eventLogger.getEventFile().toPath();
+            Event last = eventLogger.getLastEvent();
+            TieringPolicy.Tier raw = policy.tiers().getFirst();
+            long summarized = 0;
+            long scanned = -1;
+            Path rewritten = null;
+            if (last != null) {
+                LocalDateTime cutoff = min(raw.cutoff(now), raw.align(last.timestamp()));
+                long[] lines = new long[2];
+                List<PeriodSummary> added = new ArrayList<>();
+                if (horizon == null || cutoff.isAfter(horizon)) {
+                    scanned = summarize(logPath, raw, horizon, horizon == null ? null : summaries.getLast().endState(),
+                            cutoff, added::add, lines);
+                    summarized = lines[0];
+                    summaries.addAll(added);
+                } else {
+                    scanned = forEachLine(logPath, Long.MAX_VALUE, (bytes, offset, length) -> {
+                        Event event = Event.fromCSV(bytes, offset, length);
+                        if (event != null && event.timestamp().isBefore(horizon)) {
+                            lines[1]++;
+                        }
+                    });
+                }
+                if (!added.isEmpty() || lines[1] > 0) {
+                    rewritten = rewrite(logPath, scanned, added.isEmpty() ? horizon : cutoff);
+                }
+            }
+            for (TieringPolicy.Tier tier : policy.tiers().subList(1, policy.tiers().size())) {
+                summaries = rollUp(summaries, tier, tier.cutoff(now));
+            }
+            if (!summaries.equals(store.summaries())) {
+                store.replace(summaries);
+            }
+            if (rewritten != null) {
+                eventLogger.replaceLog(rewritten, scanned);
+            }
+            return new Report(summarized, summaries.size(), store.horizon());
+        }
+    }
+
+    /**
+     * Feeds the events in {@code [horizon, cutoff)} of the log to a {@link PeriodAccumulator} in chronological
+     * order. {@code counts} receives the number of those events and of the events older than {@code horizon}.
+     *
+     * @return the length of the complete lines that were scanned
+     */
+    private long summarize(Path logPath, TieringPolicy.Tier tier, LocalDateTime horizon,
+                           ServerLifecycle.State initial, LocalDateTime cutoff, Consumer<PeriodSummary> output,
+                           long[] counts) throws IOException {
+        long scanned;
+        try (ExternalEventSorter sorter = new ExternalEventSorter(true, eventLogger.getSortBudget())) {
+            scanned = forEachLine(logPath, Long.MAX_VALUE, (bytes, offset, length) -> {
+                Event event = Event.fromCSV(bytes, offset, length);
+                if (event != null && inRange(event, horizon, cutoff)) {
+                    sorter.add(event);
+                    counts[0]++;
+                } else if (event != null && horizon != null && event.timestamp().isBefore(horizon)) {
+                    counts[1]++;
+                }
+            });
+            PeriodAccumulator[] accumulator = new PeriodAccumulator[1];
+            if (horizon != null) {
+                accumulator[0] = new PeriodAccumulator(horizon, tier.period(), initial, output);
+            }
+            sorter.drain(0, event -> {
+                if (accumulator[0] == null) {
+                    accumulator[0] = new PeriodAccumulator(tier.align(event.timestamp()), tier.period(), null, output);
+                }
+                accumulator[0].accept(event);
+            });
+            if (accumulator[0] != null) {
+                accumulator[0].finish(cutoff);
+            }
+        }
+        return scanned;
+    }
+
+    /**
+     * Copies the lines of the first {@code length} bytes of the log without the events older than {@code cutoff}
+     * into a new file.
+     */
+    private Path rewrite(Path logPath, long length, LocalDateTime cutoff) throws IOException {
+        Path rewritten = logPath.resolveSibling(logPath.getFileName() + ".tiering");
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(rewritten))) {
+            forEachLine(logPath, length, (bytes, offset, lineLength) -> {
+                Event event = Event.fromCSV(bytes, offset, lineLength);
+                if (event == null || !event.timestamp().isBefore(cutoff)) {
+                    out.write(bytes, offset, lineLength);
+                    out.write('\n');
+                }
+            });
+        }
+        return rewritten;
+    }
+
+    private static boolean inRange(Event event, LocalDateTime horizon, LocalDateTime cutoff) {
+        return (horizon == null || !event.timestamp().isBefore(horizon)) && event.timestamp().isBefore(cutoff);
+    }
+
+    /**
+     * Merges summaries that end before {@code cutoff} into summaries of the tier's period.
+     */
+    static List<PeriodSummary> rollUp(List<PeriodSummary> summaries, TieringPolicy.Tier tier, LocalDateTime cutoff) {
+        List<PeriodSummary> result = new ArrayList<>();
+        LocalDateTime group = null;
+        for (PeriodSummary summary : summaries) {
+            boolean eligible = !summary.end().isAfter(cutoff)
+                    && Duration.between(summary.start(), summary.end()).compareTo(tier.period()) < 0;
+            LocalDateTime key = eligible ? tier.align(summary.start()) : null;
+            if (key != null && key.equals(group) && result.getLast().end().equals(summary.start())) {
+                result.set(result.size() - 1, result.getLast().merge(summary));
+            } else {
+                result.add(summary);
+            }
+            group = key;
+        }
+        return result;
+    }
+
+    private interface LineHandler {
+        void line(byte[] bytes, int offset, int length) throws IOException;
+    }
+
+    /**
+     * Passes the complete lines within the first {@code limit} bytes of the log to {@code handler}.
+     *
+     * @return the length of the complete lines
+     */
+    private static long forEachLine(Path logPath, long limit, LineHandler handler) throws IOException {
+        try (FileChannel channel = FileChannel.open(logPath, StandardOpenOption.READ)) {
+            long end = Math.min(limit, channel.size());
+            ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+            byte[] bytes = buffer.array();
+            long position = 0;
+            while (position + buffer.position() < end) {
+                buffer.limit((int) Math.min(buffer.capacity(), end - position));
+                if (channel.read(buffer, position + buffer.position()) <= 0) {
+                    break;
+                }
+                int lineStart = 0;
+                for (int i = 0; i < buffer.position(); i++) {
+                    if (bytes[i] == '\n') {
+                        handler.line(bytes, lineStart, i - lineStart);
+                        lineStart = i + 1;
+                    }
+                }
+                if (lineStart == 0 && buffer.position() == buffer.capacity()) {
+                    throw new IOException("Line longer than " + READ_BUFFER_SIZE + " bytes at offset " + position);
+                }
+                position += lineStart;
+                buffer.limit(buffer.position()).position(lineStart);
+                buffer.compact();
+            }
+            return position;
+        }
+    }
+
+    private static LocalDateTime min(LocalDateTime a, LocalDateTime b) {
+        return a.isBefore(b) ? a : b;
+    }
+}
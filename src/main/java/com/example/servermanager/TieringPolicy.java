@@ -0,0 +1,92 @@
+package com.example.servermanager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ages beyond which history is kept at a coarser resolution.
+ * <p>
+ * Raw events older than the age of the first tier are replaced by summaries of that tier's period, and summaries
+ * older than the age of each following tier are merged into summaries of its longer period. Specified as
+ * {@code AGE=PERIOD,...} with durations like {@code 90m}, {@code 12h} or {@code 30d}, e.g. {@code 30d=1h,365d=1d}.
+ */
+public record TieringPolicy(List<Tier> tiers) {
+
+    public record Tier(Duration age, Duration period) {
+        /**
+         * Rounds {@code time} down to the start of its period, periods are aligned to the epoch.
+         */
+        public LocalDateTime align(LocalDateTime time) {
+            long seconds = period.toSeconds();
+            long epochSecond = time.toEpochSecond(ZoneOffset.UTC);
+            return LocalDateTime.ofEpochSecond(Math.floorDiv(epochSecond, seconds) * seconds, 0, ZoneOffset.UTC);
+        }
+
+        /**
+         * Start of the period of {@code now - age}; everything before it belongs to this tier.
+         */
+        public LocalDateTime cutoff(LocalDateTime now) {
+            return align(now.minus(age));
+        }
+    }
+
+    public TieringPolicy {
+        if (tiers.isEmpty()) {
+            throw new IllegalArgumentException("Specify at least one tier");
+        }
+        for (int i = 0; i < tiers.size(); i++) {
+            Tier tier = tiers.get(i);
+            if (tier.period().toSeconds() <= 0 || tier.age().isNegative()) {
+                throw new IllegalArgumentException("Tier periods must be at least a second and ages not negative");
+            }
+            if (i > 0) {
+                Tier previous = tiers.get(i - 1);
+                if (tier.age().compareTo(previous.age()) <= 0
+                        || tier.period().toSeconds() % previous.period().toSeconds() != 0
+                        || tier.period().equals(previous.period())) {
+                    throw new IllegalArgumentException(
+                            "Tiers need increasing ages and periods that are multiples of the previous period");
+                }
+            }
+        }
+        tiers = List.copyOf(tiers);
+    }
+
+    public static TieringPolicy parse(String spec) {
+        List<Tier> tiers = new ArrayList<>();
+        for (String tier : spec.split(",")) {
+            String[] parts = tier.trim().split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Use AGE=PERIOD[,AGE=PERIOD...], e.g. 30d=1h,365d=1d");
+            }
+            tiers.add(new Tier(parseDuration(parts[0]), parseDuration(parts[1])));
+        }
+        return new TieringPolicy(tiers);
+    }
+
+    /**
+     * Parses a duration like {@code 60s}, {@code 90m}, {@code 12h} or {@code 30d}.
+     */
+    static Duration parseDuration(String value) {
+        String trimmed = value.trim();
+        if (trimmed.length() < 2) {
+            throw new IllegalArgumentException("Invalid duration '" + value + "', use e.g. 60s, 90m, 12h or 30d");
+        }
+        long amount;
+        try {
+            amount = Long.parseLong(trimmed.substring(0, trimmed.length() - 1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid duration '" + value + "', use e.g. 60s, 90m, 12h or 30d");
+        }
+        return switch (Character.toLowerCase(trimmed.charAt(trimmed.length() - 1))) {
+            case 's' -> Duration.ofSeconds(amount);
+            case 'm' -> Duration.ofMinutes(amount);
+            case 'h' -> Duration.ofHours(amount);
+            case 'd' -> Duration.ofDays(amount);
+            default -> throw new IllegalArgumentException("Invalid duration '" + value + "', use e.g. 60s, 90m, 12h or 30d");
+        };
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.servermanager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Clock that only moves when {@link #advance(Duration)} is called, for simulations that run faster than
+ * wall time.
+ */
+public class VirtualClock extends Clock {
+    private final AtomicReference<Instant> now;
+    private final ZoneId zone;
+
+    public VirtualClock(Instant start, ZoneId zone) {
+        this.now = new AtomicReference<>(start);
+        this.zone = zone;
+    }
+
+    public void advance(Duration duration) {
+        now.updateAndGet(instant -> instant.plus(duration));
+    }
+
+    @Override
+    public Instant instant() {
+        return now.get();
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+        return new VirtualClock(instant(), zone);
+    }
+}
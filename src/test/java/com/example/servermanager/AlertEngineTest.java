@@ -0,0 +1,157 @@
+package com.example.servermanager;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class AlertEngineTest {
+    private static final LocalDateTime START = LocalDateTime.parse("2024-01-01T00:00:00");
+
+    @TempDir
+    Path directory;
+
+    private EventLogger eventLogger;
+    private ScheduledExecutorService scheduler;
+    private final List<Alert> alerts = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setup() {
+        eventLogger = new EventLogger(directory.resolve("events.log").toString());
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @AfterEach
+    void cleanup() throws IOException {
+        scheduler.shutdownNow();
+        eventLogger.close();
+    }
+
+    @Test
+    void testWindowRuleFiresOncePerBurst() {
+        AlertEngine engine = start(AlertRule.parse("repeated-failures: 3 failed within 5m"));
+
+        eventLogger.logEvent(new Event("failed", START));
+        eventLogger.logEvent(new Event("up", START.plusMinutes(1)));
+        eventLogger.logEvent(new Event("failed", START.plusMinutes(4)));
+        // The first failure is out of the window by now
+        eventLogger.logEvent(new Event("failed", START.plusMinutes(6)));
+        assertTrue(alerts.isEmpty());
+
+        eventLogger.logEvent(new Event("failed", START.plusMinutes(7)));
+        eventLogger.logEvent(new Event("failed", START.plusMinutes(8)));
+        engine.close();
+        eventLogger.logEvent(new Event("failed", START.plusMinutes(9)));
+
+        assertEquals(1, alerts.size());
+        Alert alert = alerts.getFirst();
+        assertEquals("repeated-failures", alert.rule());
+        assertEquals(START.plusMinutes(7), alert.timestamp());
+        assertTrue(alert.message().contains("first at " + START.plusMinutes(4)));
+    }
+
+    @Test
+    void testTimeoutRuleFiresWithoutExpectedStatus() {
+        AlertEngine engine = start(new AlertRule.Timeout("slow-start", "starting", "up", Duration.ofMillis(200)));
+
+        eventLogger.logEvent(new Event("starting", START));
+        eventLogger.logEvent(new Event("up", START.plusSeconds(1)));
+        eventLogger.logEvent(new Event("starting", START.plusSeconds(2)));
+        eventLogger.logEvent(new Event("failed", START.plusSeconds(3)));
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> !alerts.isEmpty());
+        engine.close();
+        assertEquals(1, alerts.size());
+        assertEquals("slow-start", alerts.getFirst().rule());
+        assertTrue(alerts.getFirst().message().contains("since " + START.plusSeconds(2)));
+    }
+
+    @Test
+    void testImportedAndReplicatedHistoryIsSkipped() throws IOException {
+        start(AlertRule.parse("repeated-failures: 2 failed within 1h"));
+        start(new AlertRule.Timeout("slow-start", "starting", "up", Duration.ofMillis(100)));
+
+        eventLogger.logEvents(List.of(new Event("failed", START), new Event("failed", START.plusMinutes(1)),
+                new Event("starting", START.plusMinutes(2))));
+        byte[] replicated = (new Event("failed", START.plusMinutes(3)).toCSV() + "\n").getBytes(StandardCharsets.UTF_8);
+        eventLogger.appendReplicated(Files.size(directory.resolve("events.log")), replicated, replicated.length);
+        await().during(300, TimeUnit.MILLISECONDS).atMost(1, TimeUnit.SECONDS).until(alerts::isEmpty);
+
+        eventLogger.logEvent(new Event("failed", START.plusMinutes(4)));
+        eventLogger.logEvent(new Event("failed", START.plusMinutes(5)));
+        assertEquals(List.of("repeated-failures"), alerts.stream().map(Alert::rule).toList());
+    }
+
+    @Test
+    void testClosingCancelsPendingTimeouts() throws InterruptedException {
+        AlertEngine engine = start(new AlertRule.Timeout("slow-start", "starting", "up", Duration.ofMillis(100)));
+
+        eventLogger.logEvent(new Event("starting", START));
+        engine.close();
+
+        Thread.sleep(300);
+        assertTrue(alerts.isEmpty());
+    }
+
+    @Test
+    void testRulesAreLoadedAndAlertsWrittenToTheirLog() throws IOException {
+        Path config = directory.resolve("alerts.conf");
+        Files.writeString(config, """
+                # Alert rules
+                repeated-failures: 2 FAILED within 1h
+
+                slow-start: starting without up for 60s
+                """);
+        List<AlertRule> rules = AlertRule.load(config);
+        assertEquals(List.of(new AlertRule.Window("repeated-failures", "failed", 2, Duration.ofHours(1)),
+                new AlertRule.Timeout("slow-start", "starting", "up", Duration.ofSeconds(60))), rules);
+
+        Path alertPath = directory.resolve("alerts.log");
+        try (AlertLog alertLog = new AlertLog(alertPath);
+             AlertEngine engine = new AlertEngine(eventLogger, rules, scheduler, Clock.systemUTC(), alertLog)) {
+            engine.start();
+            eventLogger.logEvent(new Event("failed", START));
+            eventLogger.logEvent(new Event("failed", START.plusMinutes(30)));
+        }
+        assertEquals(List.of("2024-01-01T00:30,repeated-failures,\"2 failed within 3600s, first at 2024-01-01T00:00\""),
+                Files.readAllLines(alertPath));
+    }
+
+    @Test
+    void testAlertFieldsWithCommasOrQuotesAreQuoted() {
+        assertEquals("2024-01-01T00:00,slow-start,\"says \"\"hi\"\", twice\"",
+                new Alert("slow-start", "says \"hi\", twice", START).toCSV());
+        assertEquals("2024-01-01T00:00,slow-start,plain", new Alert("slow-start", "plain", START).toCSV());
+    }
+
+    @Test
+    void testInvalidRules() {
+        assertThrows(IllegalArgumentException.class, () -> AlertRule.parse("3 failed within 5m"));
+        assertThrows(IllegalArgumentException.class, () -> AlertRule.parse("name: failed three times"));
+        assertThrows(IllegalArgumentException.class, () -> AlertRule.parse("name: 0 failed within 5m"));
+        assertThrows(IllegalArgumentException.class, () -> AlertRule.parse("name: starting without up for 60x"));
+    }
+
+    private AlertEngine start(AlertRule rule) {
+        AlertEngine engine = new AlertEngine(eventLogger, List.of(rule), scheduler, Clock.systemUTC(), alerts::add);
+        engine.start();
+        return engine;
+    }
+}
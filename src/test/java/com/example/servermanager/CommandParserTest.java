@@ -41,6 +41,14 @@ class CommandParserTest {
         assertTrue(parser.getCmdLine().hasOption("from"));
     }
 
+    @Test
+    void testFlagParameter() {
+        CommandParser parser = new CommandParser("history --follow --status up");
+        assertTrue(parser.hasParam("follow"));
+        assertFalse(parser.hasParam("sort"));
+        assertEquals("up", parser.getParam("status"));
+    }
+
     @Test
     void testEmptyTokens() {
         // Create input that will result in empty tokens after splitting
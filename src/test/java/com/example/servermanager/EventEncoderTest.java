@@ -0,0 +1,82 @@
+package com.example.servermanager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class EventEncoderTest {
+
+    @Test
+    void testOutputMatchesToCsv() throws IOException {
+        Random random = new Random(1);
+        List<String> statuses = List.of("up", "down", "starting", "stopping", "failed", "maintenance");
+        List<Event> events = new ArrayList<>();
+        for (String timestamp : List.of("2024-01-01T00:00:00", "2024-01-01T03:12:00.5", "2024-12-31T23:59:59.000000001",
+                "2024-02-29T12:00:00.123", "2024-06-01T08:30:00.120000", "0999-01-01T00:00:00", "0000-01-01T00:00:00",
+                "-0044-03-15T12:00:00", "+10000-01-01T00:00:00.010", "-12345-06-07T01:02:03")) {
+            events.add(new Event("up", LocalDateTime.parse(timestamp)));
+        }
+        for (int i = 0; i < 10_000; i++) {
+            LocalDateTime timestamp = LocalDateTime.of(1 + random.nextInt(9999), 1 + random.nextInt(12),
+                    1 + random.nextInt(28), random.nextInt(24), random.nextInt(60), random.nextInt(60),
+                    random.nextBoolean() ? 0 : random.nextInt(1_000_000_000));
+            events.add(new Event(statuses.get(random.nextInt(statuses.size())), timestamp));
+        }
+        events.add(new Event("état", LocalDateTime.parse("2024-01-01T00:00:00")));
+
+        StringBuilder expected = new StringBuilder();
+        for (Event event : events) {
+            expected.append(event.toCSV()).append('\n');
+        }
+        assertEquals(expected.toString(), encode(events, new EventEncoder(256)));
+    }
+
+    @Test
+    void testLinesLongerThanBufferAreWrittenDirectly() throws IOException {
+        Event event = new Event("x".repeat(100), LocalDateTime.parse("2024-01-01T00:00:00"));
+        EventEncoder encoder = new EventEncoder(64);
+
+        assertFalse(encoder.encode(event));
+        assertEquals(event.toCSV() + "\n", encode(List.of(event), encoder));
+    }
+
+    @Test
+    void testLoggedLinesMatchToCsv() throws IOException {
+        String file = "test_encoder_events.log";
+        new File(file).delete();
+        try (EventLogger eventLogger = new EventLogger(file)) {
+            Event first = new Event("up", LocalDateTime.parse("2024-01-01T03:12:00.250"));
+            Event second = new Event("down", LocalDateTime.parse("2024-01-01T04:00:00"));
+            eventLogger.logEvent(first);
+            eventLogger.logEvents(List.of(second));
+
+            assertEquals(first.toCSV() + "\n" + second.toCSV() + "\n",
+                    Files.readString(Path.of(file)));
+        } finally {
+            new File(file).delete();
+        }
+    }
+
+    private static String encode(List<Event> events, EventEncoder encoder) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        WritableByteChannel channel = Channels.newChannel(out);
+        for (Event event : events) {
+            encoder.append(event, channel);
+        }
+        encoder.flush(channel);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.servermanager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class EventExporterTest {
+    private static final String TEST_EVENT_FILE = "test_export_events.log";
+    private static final Path OUT = Path.of("test_export_out.txt");
+    private static final String LOG = """
+            starting,2024-01-01T10:00:00
+            up,2024-01-01T10:00:05.5
+            stopping,2024-01-02T09:00:00
+            failed,2024-01-02T09:00:07
+            starting,2024-01-03T12:00:00
+            up,2024-01-03T12:00:04
+            """;
+    private EventExporter exporter;
+
+    @BeforeEach
+    void setup() throws IOException {
+        Files.writeString(Path.of(TEST_EVENT_FILE), LOG);
+        exporter = new EventExporter(new File(TEST_EVENT_FILE));
+    }
+
+    @AfterEach
+    void cleanup() throws IOException {
+        Files.deleteIfExists(Path.of(TEST_EVENT_FILE));
+        Files.deleteIfExists(OUT);
+    }
+
+    @Test
+    void testCsvRange() throws IOException {
+        long bytes = exporter.export(LocalDateTime.parse("2024-01-02T00:00:00"),
+                LocalDateTime.parse("2024-01-02T23:59:59"), null, EventExporter.Format.CSV, OUT);
+
+        String expected = "stopping,2024-01-02T09:00:00\nfailed,2024-01-02T09:00:07\n";
+        assertEquals(expected, Files.readString(OUT));
+        assertEquals(expected.length(), bytes);
+    }
+
+    @Test
+    void testOpenEndedRanges() throws IOException {
+        exporter.export(null, LocalDateTime.parse("2024-01-01T10:00:05.5"), null, EventExporter.Format.CSV, OUT);
+        assertEquals("starting,2024-01-01T10:00:00\nup,2024-01-01T10:00:05.5\n", Files.readString(OUT));
+
+        exporter.export(LocalDateTime.parse("2024-01-03T12:00:01"), null, null, EventExporter.Format.CSV, OUT);
+        assertEquals("up,2024-01-03T12:00:04\n", Files.readString(OUT));
+
+        exporter.export(null, null, null, EventExporter.Format.CSV, OUT);
+        assertEquals(LOG, Files.readString(OUT));
+    }
+
+    @Test
+    void testNdjsonWithStatusFilter() throws IOException {
+        exporter.export(LocalDateTime.parse("2024-01-01T10:00:01"), null, "UP", EventExporter.Format.NDJSON, OUT);
+
+        assertEquals("""
+                {"status":"up","timestamp":"2024-01-01T10:00:05.5"}
+                {"status":"up","timestamp":"2024-01-03T12:00:04"}
+                """, Files.readString(OUT));
+    }
+
+    @Test
+    void testEveryFormatAndFilterNormalizesTheSameLines() throws IOException {
+        Files.writeString(Path.of(TEST_EVENT_FILE), """
+                UP,2024-01-01T10:00:00\r
+                garbage
+                up,2024-01-01T10:00:01,extra
+                up,2024-01-01T10:00:02
+                odd"one\\,2024-01-01T10:00:03
+                """);
+
+        exporter.export(null, null, null, EventExporter.Format.CSV, OUT);
+        assertEquals("""
+                up,2024-01-01T10:00:00
+                up,2024-01-01T10:00:02
+                odd"one\\,2024-01-01T10:00:03
+                """, Files.readString(OUT));
+
+        exporter.export(null, null, "up", EventExporter.Format.CSV, OUT);
+        assertEquals("up,2024-01-01T10:00:00\nup,2024-01-01T10:00:02\n", Files.readString(OUT));
+
+        exporter.export(null, null, null, EventExporter.Format.NDJSON, OUT);
+        assertEquals("""
+                {"status":"up","timestamp":"2024-01-01T10:00:00"}
+                {"status":"up","timestamp":"2024-01-01T10:00:02"}
+                {"status":"odd\\"one\\\\","timestamp":"2024-01-01T10:00:03"}
+                """, Files.readString(OUT));
+    }
+
+    @Test
+    void testEmptyRange() throws IOException {
+        long bytes = exporter.export(LocalDateTime.parse("2025-01-01T00:00:00"), null, null,
+                EventExporter.Format.CSV, OUT);
+
+        assertEquals(0, bytes);
+        assertEquals("", Files.readString(OUT));
+    }
+
+    @Test
+    void testFormatLookup() {
+        assertEquals(EventExporter.Format.NDJSON, EventExporter.Format.of("NDJson"));
+        assertEquals(null, EventExporter.Format.of("xml"));
+    }
+}
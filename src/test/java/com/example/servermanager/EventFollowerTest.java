@@ -0,0 +1,110 @@
+package com.example.servermanager;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class EventFollowerTest {
+    private static final String TEST_EVENT_FILE = "test_follow_events.log";
+    private final List<Event> received = new CopyOnWriteArrayList<>();
+    private EventLogger eventLogger;
+    private EventFollower follower;
+
+    @BeforeEach
+    void setup() {
+        new File(TEST_EVENT_FILE).delete();
+        eventLogger = new EventLogger(TEST_EVENT_FILE);
+    }
+
+    @AfterEach
+    void cleanup() throws IOException {
+        if (follower != null) {
+            follower.close();
+        }
+        eventLogger.close();
+        new File(TEST_EVENT_FILE).delete();
+        new File(TEST_EVENT_FILE + ".summary").delete();
+    }
+
+    @Test
+    void testDeliversOnlyEventsAppendedAfterStart() {
+        eventLogger.logEvent(new Event("up", LocalDateTime.now().minusHours(1)));
+        follower = new EventFollower(eventLogger, null, received::add);
+        follower.start();
+
+        Event event = new Event("down", LocalDateTime.now());
+        eventLogger.logEvent(event);
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> received.size() == 1);
+        assertEquals(event, received.getFirst());
+    }
+
+    @Test
+    void testHonorsStatusFilter() {
+        follower = new EventFollower(eventLogger, "FAILED", received::add);
+        follower.start();
+
+        eventLogger.logEvent(new Event("starting", LocalDateTime.now()));
+        eventLogger.logEvent(new Event("failed", LocalDateTime.now()));
+        eventLogger.logEvent(new Event("up", LocalDateTime.now()));
+        eventLogger.logEvent(new Event("failed", LocalDateTime.now()));
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> received.size() == 2);
+        assertEquals(List.of("failed", "failed"), received.stream().map(Event::status).toList());
+    }
+
+    @Test
+    void testPicksUpWritesFromOtherWriters() throws IOException {
+        follower = new EventFollower(eventLogger, null, received::add);
+        follower.start();
+
+        Event event = new Event("up", LocalDateTime.parse("2024-01-01T10:00:00"));
+        String csv = event.toCSV();
+        // Write a record in two parts to simulate a partially flushed line from another process
+        Files.writeString(new File(TEST_EVENT_FILE).toPath(), csv.substring(0, 5),
+                StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        follower.wakeup();
+        Files.writeString(new File(TEST_EVENT_FILE).toPath(), csv.substring(5) + System.lineSeparator(),
+                StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> received.size() == 1);
+        assertEquals(event, received.getFirst());
+    }
+
+    @Test
+    void testKeepsFollowingWhenTieringReplacesTheLog() throws IOException {
+        LocalDateTime start = LocalDateTime.parse("2024-01-01T00:00:00");
+        for (int day = 0; day < 10; day++) {
+            eventLogger.logEvent(new Event("up", start.plusDays(day)));
+            eventLogger.logEvent(new Event("down", start.plusDays(day).plusHours(12)));
+        }
+        follower = new EventFollower(eventLogger, null, received::add);
+        follower.start();
+        Event beforeTiering = new Event("up", start.plusDays(10));
+        eventLogger.logEvent(beforeTiering);
+        await().atMost(5, TimeUnit.SECONDS).until(() -> received.size() == 1);
+
+        VirtualClock clock = new VirtualClock(start.plusDays(11).toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+        TieringJob.Report report = new TieringJob(eventLogger, TieringPolicy.parse("2d=1h"), clock).runOnce();
+        assertTrue(report.summarizedEvents() > 0);
+        Event afterTiering = new Event("down", start.plusDays(10).plusHours(1));
+        eventLogger.logEvent(afterTiering);
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> received.size() >= 2);
+        assertEquals(List.of(beforeTiering, afterTiering), received);
+    }
+}
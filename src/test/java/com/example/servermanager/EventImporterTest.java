@@ -0,0 +1,140 @@
+package com.example.servermanager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class EventImporterTest {
+    private static final LocalDateTime START = LocalDateTime.parse("2024-01-01T00:00:00");
+
+    @TempDir
+    Path directory;
+
+    private EventLogger eventLogger;
+
+    @BeforeEach
+    void setup() {
+        eventLogger = new EventLogger(directory.resolve("events.log").toString());
+    }
+
+    @AfterEach
+    void cleanup() throws IOException {
+        eventLogger.close();
+    }
+
+    @Test
+    void testMergesFilesInTimestampOrder() throws Exception {
+        Path first = Files.writeString(directory.resolve("host1.log"), """
+                starting,2024-01-01T10:00:00
+                up,2024-01-01T10:00:05
+                stopping,2024-01-01T12:00:00
+                """);
+        Path second = Files.writeString(directory.resolve("host2.log"), """
+                starting,2024-01-01T11:00:00
+                failed,2024-01-01T11:00:09
+                """);
+
+        EventImporter.Report report = new EventImporter(eventLogger, 2).importFiles(List.of(first, second));
+
+        assertEquals(5, report.imported());
+        assertEquals(0, report.rejected());
+        assertEquals(List.of("starting", "up", "starting", "failed", "stopping"),
+                eventLogger.getAllEvents().stream().map(Event::status).toList());
+    }
+
+    @Test
+    void testReportsInvalidLinesWithPositions() throws Exception {
+        Path file = Files.writeString(directory.resolve("host.log"), """
+                up,2024-01-01T10:00:00
+                garbage
+                sleeping,2024-01-01T10:00:01
+
+                down,yesterday
+                down,2024-01-01T10:00:02
+                """);
+
+        EventImporter.Report report = new EventImporter(eventLogger).importFiles(List.of(file));
+
+        assertEquals(2, report.imported());
+        assertEquals(3, report.rejected());
+        assertEquals(List.of(2L, 3L, 5L), report.errors().stream().map(EventImporter.LineError::line).toList());
+        assertEquals(23, report.errors().getFirst().offset());
+        assertTrue(report.errors().get(1).message().contains("unknown status"));
+        assertTrue(report.errors().get(2).message().contains("invalid timestamp"));
+    }
+
+    @Test
+    void testLargeFilesAreSplitIntoChunks() throws Exception {
+        Path even = directory.resolve("even.log");
+        Path odd = directory.resolve("odd.log");
+        int perFile = 250_000;
+        try (BufferedWriter evenWriter = Files.newBufferedWriter(even);
+             BufferedWriter oddWriter = Files.newBufferedWriter(odd)) {
+            for (int i = 0; i < perFile; i++) {
+                evenWriter.write(new Event("up", START.plusSeconds(2L * i)).toCSV());
+                evenWriter.newLine();
+                oddWriter.write(new Event("down", START.plusSeconds(2L * i + 1)).toCSV());
+                oddWriter.newLine();
+                if (i == perFile - 10) {
+                    oddWriter.write("broken line");
+                    oddWriter.newLine();
+                }
+            }
+        }
+        assertTrue(Files.size(even) > 4 * 1024 * 1024);
+        long runsBefore = spilledRuns();
+
+        EventImporter.Report report = new EventImporter(eventLogger, 4).importFiles(List.of(even, odd));
+
+        assertEquals(2L * perFile, report.imported());
+        assertEquals(List.of((long) perFile - 8), report.errors().stream().map(EventImporter.LineError::line).toList());
+        List<Event> events = eventLogger.getAllEvents();
+        assertEquals(events.stream().sorted(Comparator.comparing(Event::timestamp)).toList(), events);
+        assertEquals(runsBefore, spilledRuns());
+    }
+
+    @Test
+    void testMergesEventsOlderThanLogAtTheirPosition() throws Exception {
+        eventLogger.logEvent(new Event("up", START.plusDays(1)));
+        eventLogger.logEvent(new Event("down", START.plusDays(3)));
+        Path file = Files.writeString(directory.resolve("host.log"), "down,2024-01-01T10:00:00\nup,2024-01-03T10:00:00\n");
+
+        EventImporter.Report report = new EventImporter(eventLogger).importFiles(List.of(file));
+
+        assertEquals(2, report.imported());
+        assertEquals(2, report.olderThanLog());
+        assertEquals(List.of(START.plusHours(10), START.plusDays(1), START.plusDays(2).plusHours(10), START.plusDays(3)),
+                eventLogger.getAllEvents().stream().map(Event::timestamp).toList());
+    }
+
+    @Test
+    void testWriteFailureStopsImport() throws Exception {
+        Path file = Files.writeString(directory.resolve("host.log"), "up,2024-01-01T10:00:00\n");
+        long runsBefore = spilledRuns();
+
+        try (EventLogger unwritable = new EventLogger(
+                Files.createDirectory(directory.resolve("unwritable.log")).toString())) {
+            assertThrows(IOException.class, () -> new EventImporter(unwritable).importFiles(List.of(file)));
+        }
+        assertEquals(runsBefore, spilledRuns());
+    }
+
+    private static long spilledRuns() throws IOException {
+        try (Stream<Path> files = Files.list(Path.of(System.getProperty("java.io.tmpdir")))) {
+            return files.filter(file -> file.getFileName().toString().startsWith("servermanager-import")).count();
+        }
+    }
+}
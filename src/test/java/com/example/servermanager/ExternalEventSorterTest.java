@@ -0,0 +1,108 @@
+package com.example.servermanager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class ExternalEventSorterTest {
+    private static final LocalDateTime START = LocalDateTime.parse("2024-01-01T00:00:00");
+    private static final String[] STATUSES = {"starting", "up", "stopping", "down", "failed"};
+
+    @Test
+    void testSmallResultIsSortedInMemory() throws IOException {
+        List<Event> events = shuffledEvents(100);
+        List<Event> sorted = new ArrayList<>();
+        try (ExternalEventSorter sorter = new ExternalEventSorter(true, 1000)) {
+            for (Event event : events) {
+                sorter.add(event);
+            }
+            sorter.drain(0, sorted::add);
+            assertEquals(0, sorter.runCount());
+        }
+        assertEquals(stableSort(events, true), sorted);
+    }
+
+    @Test
+    void testLargeResultIsMergedFromSpilledRuns() throws IOException {
+        List<Event> events = shuffledEvents(5000);
+        for (boolean ascending : new boolean[]{true, false}) {
+            List<Event> sorted = new ArrayList<>();
+            try (ExternalEventSorter sorter = new ExternalEventSorter(ascending, 300)) {
+                for (Event event : events) {
+                    sorter.add(event);
+                }
+                assertEquals(16, sorter.runCount());
+                assertEquals(5000, sorter.drain(0, sorted::add));
+            }
+            assertEquals(stableSort(events, ascending), sorted);
+        }
+    }
+
+    @Test
+    void testDrainStopsAtLimit() throws IOException {
+        List<Event> events = shuffledEvents(1000);
+        List<Event> newest = new ArrayList<>();
+        try (ExternalEventSorter sorter = new ExternalEventSorter(false, 64)) {
+            for (Event event : events) {
+                sorter.add(event);
+            }
+            assertEquals(10, sorter.drain(10, newest::add));
+        }
+        assertEquals(stableSort(events, false).subList(0, 10), newest);
+    }
+
+    @Test
+    void testHistorySpillsWithSmallBudget() throws IOException {
+        String file = "test_sort_events.log";
+        new File(file).delete();
+        try (EventLogger eventLogger = new EventLogger(file)) {
+            List<Event> events = shuffledEvents(2000);
+            eventLogger.logEvents(events);
+            eventLogger.setSortBudget(128);
+
+            List<Event> sorted = new ArrayList<>();
+            long count = eventLogger.forEachEvent("up", START, null, true, 0, sorted::add);
+
+            List<Event> expected = stableSort(events, true).stream().filter(e -> e.status().equals("up")).toList();
+            assertEquals(expected.size(), count);
+            assertEquals(expected, sorted);
+            assertEquals(eventLogger.filterEvents("up", START, null, true), sorted);
+            assertTrue(expected.size() > 128);
+        } finally {
+            new File(file).delete();
+            new File(file + ".idx").delete();
+        }
+    }
+
+    /**
+     * Events with many equal timestamps in random order.
+     */
+    private static List<Event> shuffledEvents(int count) {
+        Random random = new Random(7);
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            events.add(new Event(STATUSES[i % STATUSES.length], START.plusSeconds(random.nextInt(count / 4))));
+        }
+        Collections.shuffle(events, random);
+        return events;
+    }
+
+    private static List<Event> stableSort(List<Event> events, boolean ascending) {
+        List<Event> sorted = new ArrayList<>(events);
+        if (!ascending) {
+            Collections.reverse(sorted);
+        }
+        Comparator<Event> byTimestamp = Comparator.comparing(Event::timestamp);
+        sorted.sort(ascending ? byTimestamp : byTimestamp.reversed());
+        return sorted;
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.servermanager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class HistoryCacheTest {
+    private static final String TEST_EVENT_FILE = "test_cache_events.log";
+    private static final LocalDateTime START = LocalDateTime.parse("2024-01-01T00:00:00");
+    private static final HistoryCache.Key FAILED = new HistoryCache.Key("failed", null, null);
+
+    private EventLogger eventLogger;
+    private final AtomicInteger queries = new AtomicInteger();
+    private final Function<HistoryCache.Key, List<Event>> query = key -> {
+        queries.incrementAndGet();
+        return new ArrayList<>(eventLogger.getAllEvents().stream().filter(key::matches).toList());
+    };
+
+    @BeforeEach
+    void setup() {
+        cleanup();
+        eventLogger = new EventLogger(TEST_EVENT_FILE);
+    }
+
+    @AfterEach
+    void close() throws IOException {
+        eventLogger.close();
+        cleanup();
+    }
+
+    void cleanup() {
+        new File(TEST_EVENT_FILE).delete();
+        new File(TEST_EVENT_FILE + ".idx").delete();
+    }
+
+    @Test
+    void testRepeatedQueryIsServedFromCache() {
+        eventLogger.logEvent(new Event("failed", START));
+        eventLogger.logEvent(new Event("up", START.plusMinutes(1)));
+        HistoryCache cache = new HistoryCache(Path.of(TEST_EVENT_FILE), eventLogger, 8, 1 << 20);
+
+        List<Event> first = cache.get(FAILED, query);
+        List<Event> second = cache.get(FAILED, query);
+
+        assertEquals(List.of(new Event("failed", START)), first);
+        assertEquals(first, second);
+        assertEquals(1, queries.get());
+        assertEquals(new HistoryCache.Stats(1, 0, 1, 1, cache.stats().weightBytes()), cache.stats());
+    }
+
+    @Test
+    void testAppendedTailExtendsCachedResult() {
+        eventLogger.logEvent(new Event("failed", START));
+        HistoryCache cache = new HistoryCache(Path.of(TEST_EVENT_FILE), eventLogger, 8, 1 << 20);
+        cache.get(FAILED, query);
+
+        eventLogger.logEvent(new Event("up", START.plusMinutes(1)));
+        eventLogger.logEvent(new Event("failed", START.plusMinutes(2)));
+
+        assertEquals(List.of(new Event("failed", START), new Event("failed", START.plusMinutes(2))),
+                cache.get(FAILED, query));
+        assertEquals(1, queries.get());
+        assertEquals(1, cache.stats().extensions());
+    }
+
+    @Test
+    void testRewrittenLogIsQueriedAgain() throws IOException {
+        eventLogger.logEvent(new Event("failed", START));
+        HistoryCache cache = new HistoryCache(Path.of(TEST_EVENT_FILE), eventLogger, 8, 1 << 20);
+        cache.get(FAILED, query);
+
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(TEST_EVENT_FILE))) {
+            writer.write(new Event("failed", START.plusYears(1)).toCSV());
+            writer.newLine();
+            writer.write(new Event("failed", START.plusYears(1).plusMinutes(1)).toCSV());
+            writer.newLine();
+        }
+
+        assertEquals(2, cache.get(FAILED, query).size());
+        assertEquals(2, queries.get());
+        assertEquals(2, cache.stats().misses());
+    }
+
+    @Test
+    void testLeastRecentlyUsedEntriesAreEvicted() {
+        eventLogger.logEvent(new Event("failed", START));
+        HistoryCache cache = new HistoryCache(Path.of(TEST_EVENT_FILE), eventLogger, 2, 1 << 20);
+        HistoryCache.Key up = new HistoryCache.Key("up", null, null);
+        HistoryCache.Key from = new HistoryCache.Key(null, START, null);
+
+        cache.get(FAILED, query);
+        cache.get(up, query);
+        cache.get(FAILED, query);
+        cache.get(from, query);
+        cache.get(FAILED, query);
+        cache.get(up, query);
+
+        assertEquals(4, queries.get());
+        assertEquals(2, cache.stats().entries());
+    }
+
+    @Test
+    void testFilterEventsUsesCache() {
+        eventLogger.logEvent(new Event("failed", START));
+        eventLogger.filterEvents("FAILED", START, null, true);
+        eventLogger.logEvent(new Event("failed", START.plusMinutes(1)));
+
+        assertEquals(2, eventLogger.filterEvents("failed", START, null, true).size());
+        HistoryCache.Stats stats = eventLogger.historyCacheStats();
+        assertEquals(1, stats.misses());
+        assertEquals(1, stats.extensions());
+    }
+}
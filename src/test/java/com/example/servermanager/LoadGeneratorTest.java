@@ -0,0 +1,65 @@
+package com.example.servermanager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class LoadGeneratorTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testRunsCyclesOnVirtualClock() throws IOException, InterruptedException {
+        LoadGenerator.Report report = new LoadGenerator(directory, 7).run(3, 200);
+
+        assertEquals(600, report.cycles());
+        // Every cycle logs at least starting and a result for up
+        assertTrue(report.events() >= 1200);
+        assertEquals(report.events(), report.writeLatency().count());
+        assertEquals(6, report.queryLatency().count());
+        // Each transition pauses 3-10 simulated seconds, far more than the wall time of the run
+        assertTrue(report.simulatedTime().compareTo(Duration.ofMinutes(200 * 3 / 60)) > 0);
+        assertTrue(report.simulatedTime().compareTo(report.wallTime()) > 0);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(Files.exists(directory.resolve("server-" + i + ".log")));
+        }
+    }
+
+    @Test
+    void testRunsAreReproducibleForTheSameSeed() throws IOException, InterruptedException {
+        new LoadGenerator(directory.resolve("a"), 11).run(1, 100);
+        new LoadGenerator(directory.resolve("b"), 11).run(1, 100);
+
+        assertEquals(Files.readString(directory.resolve("a/server-0.log")),
+                Files.readString(directory.resolve("b/server-0.log")));
+    }
+
+    @Test
+    void testLatencyPercentilesComeFromFixedBuckets() {
+        LatencyRecorder first = new LatencyRecorder();
+        LatencyRecorder second = new LatencyRecorder();
+        for (long nanos = 1; nanos <= 100_000; nanos++) {
+            (nanos % 2 == 0 ? first : second).record(nanos * 1_000);
+        }
+        first.merge(second);
+
+        assertEquals(100_000, first.count());
+        // Each bucket spans 1/64 of its power of two, percentiles are rounded up to the end of their bucket
+        assertWithinBucket(50_000_000, first.percentile(0.50));
+        assertWithinBucket(99_000_000, first.percentile(0.99));
+        assertEquals(100_000_000, first.percentile(1.0));
+        assertEquals("n=100000 p50=50.3ms p99=99.6ms p99.9=100.0ms max=100.0ms", first.summary());
+    }
+
+    private static void assertWithinBucket(long expected, long actual) {
+        assertTrue(actual >= expected && actual <= expected + expected / LatencyRecorder.SUB_BUCKETS,
+                actual + " is not within a bucket of " + expected);
+    }
+}
@@ -7,6 +7,7 @@ import static org.mockito.Mockito.verifyNoMoreInteractions;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
+import java.util.List;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -63,7 +64,70 @@ public class MainTest {
         simulateUserInput("history --from 2024-01-01 --to 2024-01-31 --sort desc --status UP\nexit\n");
         Main.main(new String[]{});
         
-        verify(serverManager).history("2024-01-01", "2024-01-31", "desc", "UP");
+        verify(serverManager).history("2024-01-01", "2024-01-31", "desc", "UP", null);
+        verifyNoMoreInteractions(serverManager);
+    }
+
+    @Test
+    void testHistoryCommandWithLimit() {
+        simulateUserInput("history --sort desc --limit 50\nexit\n");
+        Main.main(new String[]{});
+
+        verify(serverManager).history(null, null, "desc", null, "50");
+        verifyNoMoreInteractions(serverManager);
+    }
+
+    @Test
+    void testHistoryFollowCommand() {
+        simulateUserInput("history --follow --status failed\n\nexit\n");
+        Main.main(new String[]{});
+
+        verify(serverManager).followHistory("failed");
+        verifyNoMoreInteractions(serverManager);
+    }
+
+    @Test
+    void testExportCommand() {
+        simulateUserInput("export --from 2024-01-01 --to 2024-01-31 --out events.ndjson --format ndjson\nexit\n");
+        Main.main(new String[]{});
+
+        verify(serverManager).export("2024-01-01", "2024-01-31", "events.ndjson", "ndjson", null);
+        verifyNoMoreInteractions(serverManager);
+    }
+
+    @Test
+    void testLoadCommand() {
+        simulateUserInput("load --servers 4 --cycles 1000\nexit\n");
+        Main.main(new String[]{});
+
+        verify(serverManager).load("4", "1000");
+        verifyNoMoreInteractions(serverManager);
+    }
+
+    @Test
+    void testImportCommand() {
+        simulateUserInput("import host1.log host2.log\nexit\n");
+        Main.main(new String[]{});
+
+        verify(serverManager).importEvents(List.of("host1.log", "host2.log"));
+        verifyNoMoreInteractions(serverManager);
+    }
+
+    @Test
+    void testAtCommand() {
+        simulateUserInput("at 2024-01-01T03:12 2024-01-02T00:00\nexit\n");
+        Main.main(new String[]{});
+
+        verify(serverManager).at(List.of("2024-01-01T03:12", "2024-01-02T00:00"));
+        verifyNoMoreInteractions(serverManager);
+    }
+
+    @Test
+    void testStatsCommand() {
+        simulateUserInput("stats --from 2024-01-01 --to 2024-01-31\nexit\n");
+        Main.main(new String[]{});
+
+        verify(serverManager).stats("2024-01-01", "2024-01-31");
         verifyNoMoreInteractions(serverManager);
     }
 
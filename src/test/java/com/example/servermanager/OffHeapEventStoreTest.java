@@ -0,0 +1,162 @@
+package com.example.servermanager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class OffHeapEventStoreTest {
+    private static final String[] STATUSES = {"starting", "up", "stopping", "down", "failed"};
+    private static final LocalDateTime START = LocalDateTime.parse("2024-01-01T00:00:00");
+
+    @TempDir
+    Path directory;
+
+    private Path log;
+    private EventLogger eventLogger;
+
+    @BeforeEach
+    void setup() {
+        log = directory.resolve("events.log");
+        eventLogger = new EventLogger(log.toString());
+    }
+
+    @AfterEach
+    void cleanup() throws IOException {
+        eventLogger.close();
+    }
+
+    @Test
+    void testQueriesMatchTheLogAcrossChunks() throws IOException {
+        eventLogger.logEvents(randomEvents(1000));
+
+        try (OffHeapEventStore store = new OffHeapEventStore(log, 64)) {
+            assertEquals(1000, store.size());
+            LocalDateTime from = START.plusMinutes(2000);
+            LocalDateTime to = START.plusMinutes(4000);
+            for (String status : new String[]{null, "failed", "unknown"}) {
+                for (boolean asc : new boolean[]{true, false}) {
+                    for (int limit : new int[]{0, 7}) {
+                        assertEquals(eventLogger.filterEvents(status, null, null, asc, limit),
+                                query(store, status, null, null, asc, limit));
+                        assertEquals(eventLogger.filterEvents(status, from, to, asc, limit),
+                                query(store, status, from, to, asc, limit));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void testAppendedEventsAreRead() throws IOException {
+        try (OffHeapEventStore store = new OffHeapEventStore(log, 4)) {
+            assertNull(store.last());
+            eventLogger.logEvent(new Event("up", START));
+            assertEquals(new Event("up", START), store.last());
+
+            eventLogger.logEvents(randomEvents(10).stream()
+                    .map(event -> new Event(event.status(), event.timestamp().plusDays(1)))
+                    .toList());
+            assertEquals(11, store.size());
+            assertEquals(eventLogger.getAllEvents(), query(store, null, null, null, true, 0));
+        }
+    }
+
+    @Test
+    void testIntervalsMatchStateTimeline() throws IOException {
+        List<Event> events = new ArrayList<>(randomEvents(200));
+        // Repeated statuses and equal timestamps
+        LocalDateTime last = events.getLast().timestamp();
+        events.add(new Event("up", last.plusMinutes(1)));
+        events.add(new Event("up", last.plusMinutes(2)));
+        events.add(new Event("down", last.plusMinutes(2)));
+        eventLogger.logEvents(events);
+
+        List<LocalDateTime> times = new ArrayList<>();
+        times.add(START.minusDays(1));
+        for (Event event : events) {
+            times.add(event.timestamp());
+            times.add(event.timestamp().plusSeconds(1));
+        }
+        try (OffHeapEventStore store = new OffHeapEventStore(log, 32)) {
+            assertEquals(new StateTimeline(log).at(times), store.intervalsAt(times));
+        }
+    }
+
+    @Test
+    void testOutOfOrderLogIsNotAnswered() throws IOException {
+        eventLogger.logEvent(new Event("up", START.plusHours(1)));
+        eventLogger.logEvent(new Event("down", START));
+
+        try (OffHeapEventStore store = new OffHeapEventStore(log)) {
+            assertEquals(-1, store.forEach(null, null, null, true, 0, event -> { }));
+            assertNull(store.intervalsAt(List.of(START)));
+            assertEquals(new Event("down", START), store.last());
+        }
+    }
+
+    @Test
+    void testClosingTheLoggerReleasesTheLogAndTheStore() throws IOException {
+        eventLogger.setOffHeapStore(true);
+        eventLogger.logEvent(new Event("up", START));
+        assertEquals(new Event("up", START), eventLogger.getLastEvent());
+
+        eventLogger.close();
+        assertFalse(Files.exists(directory.resolve("events.log.records")));
+        Files.delete(log);
+
+        // Logging after closing reopens the log
+        eventLogger.logEvent(new Event("down", START.plusMinutes(1)));
+        assertEquals(List.of(new Event("down", START.plusMinutes(1))), eventLogger.getAllEvents());
+    }
+
+    @Test
+    void testEventLoggerUsesTheStoreAndCloseDeletesIt() throws IOException {
+        List<Event> events = randomEvents(100);
+        eventLogger.logEvents(events);
+        List<Event> failed = eventLogger.filterEvents("failed", null, null, false);
+
+        eventLogger.setOffHeapStore(true);
+        assertEquals(failed, eventLogger.filterEvents("failed", null, null, false));
+        assertEquals(events, eventLogger.getAllEvents());
+        assertEquals(events.getLast(), eventLogger.getLastEvent());
+        assertTrue(Files.exists(directory.resolve("events.log.records")));
+
+        eventLogger.setOffHeapStore(false);
+        assertFalse(Files.exists(directory.resolve("events.log.records")));
+        assertEquals(events, eventLogger.getAllEvents());
+    }
+
+    private static List<Event> query(OffHeapEventStore store, String status, LocalDateTime from, LocalDateTime to,
+                                     boolean asc, int limit) throws IOException {
+        List<Event> events = new ArrayList<>();
+        store.forEach(status, from, to, asc, limit, events::add);
+        return events;
+    }
+
+    /**
+     * Chronological events a few minutes apart, some of them at the same time.
+     */
+    private static List<Event> randomEvents(int count) {
+        Random random = new Random(7);
+        List<Event> events = new ArrayList<>(count);
+        LocalDateTime time = START;
+        for (int i = 0; i < count; i++) {
+            time = time.plusMinutes(random.nextInt(8)).plusNanos(random.nextInt(2) * 1000);
+            events.add(new Event(STATUSES[random.nextInt(STATUSES.length)], time));
+        }
+        return events;
+    }
+}
@@ -0,0 +1,213 @@
+package com.example.servermanager;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ReplicationTest {
+    private static final LocalDateTime START = LocalDateTime.parse("2024-01-01T00:00:00");
+
+    @TempDir
+    Path directory;
+
+    private EventLogger leaderLog;
+    private ReplicationLeader leader;
+    private final List<ReplicationFollower> followers = new CopyOnWriteArrayList<>();
+    private final List<EventLogger> logs = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setup() throws IOException {
+        leaderLog = newLog("leader.log");
+        leader = new ReplicationLeader(leaderLog, 0);
+        leader.start();
+    }
+
+    @AfterEach
+    void cleanup() throws IOException {
+        followers.forEach(ReplicationFollower::close);
+        leader.close();
+        for (EventLogger log : logs) {
+            log.close();
+        }
+    }
+
+    @Test
+    void testFollowerReceivesExistingAndNewEvents() throws IOException {
+        logEvents(0, 100);
+        EventLogger followerLog = newLog("follower.log");
+        startFollower(followerLog);
+
+        awaitReplicated(followerLog);
+        logEvents(100, 5);
+        awaitReplicated(followerLog);
+
+        assertEquals(leaderLog.getAllEvents(), followerLog.getAllEvents());
+        long leaderSize = Files.size(leaderLog.getEventFile().toPath());
+        await().atMost(5, TimeUnit.SECONDS)
+                .until(() -> leader.acknowledgedOffsets().containsValue(leaderSize));
+    }
+
+    @Test
+    void testMultipleFollowersAndCatchUpFromOffset() throws IOException {
+        logEvents(0, 50);
+        EventLogger first = newLog("first.log");
+        EventLogger second = newLog("second.log");
+        // The second follower already holds a prefix of the log, e.g. from an earlier run
+        List<String> lines = Files.readAllLines(leaderLog.getEventFile().toPath());
+        Files.write(second.getEventFile().toPath(), lines.subList(0, 20));
+        startFollower(first);
+        startFollower(second);
+
+        logEvents(50, 10);
+        awaitReplicated(first);
+        awaitReplicated(second);
+
+        assertEquals(leaderLog.getAllEvents(), first.getAllEvents());
+        assertEquals(leaderLog.getAllEvents(), second.getAllEvents());
+    }
+
+    @Test
+    void testFollowerResumesAfterDisconnect() throws IOException {
+        logEvents(0, 10);
+        EventLogger followerLog = newLog("follower.log");
+        ReplicationFollower follower = startFollower(followerLog);
+        awaitReplicated(followerLog);
+        follower.close();
+
+        logEvents(10, 10);
+        ReplicationFollower resumed = startFollower(followerLog);
+        awaitReplicated(followerLog);
+
+        assertEquals(leaderLog.getAllEvents(), followerLog.getAllEvents());
+        assertEquals(Files.size(leaderLog.getEventFile().toPath()), resumed.getReplicatedOffset());
+        // Each session has its own address, the entries of ended sessions are dropped
+        await().atMost(5, TimeUnit.SECONDS).until(() -> leader.acknowledgedOffsets().size() == 1);
+        resumed.close();
+        await().atMost(5, TimeUnit.SECONDS).until(() -> leader.acknowledgedOffsets().isEmpty());
+    }
+
+    @Test
+    void testFollowerNotifiesListeners() {
+        EventLogger followerLog = newLog("follower.log");
+        List<Event> received = new CopyOnWriteArrayList<>();
+        followerLog.addListener(received::add);
+        startFollower(followerLog);
+
+        logEvents(0, 3);
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> received.size() == 3);
+        assertEquals(leaderLog.getAllEvents(), received);
+    }
+
+    @Test
+    void testFollowerWithMisalignedCopyIsRejected() throws IOException {
+        logEvents(0, 2);
+        EventLogger followerLog = newLog("follower.log");
+        Files.writeString(followerLog.getEventFile().toPath(), "up,2024");
+        startFollower(followerLog);
+
+        await().during(1, TimeUnit.SECONDS).atMost(3, TimeUnit.SECONDS)
+                .until(() -> Files.readString(followerLog.getEventFile().toPath()).equals("up,2024"));
+        assertTrue(leader.acknowledgedOffsets().isEmpty());
+    }
+
+    @Test
+    void testFollowerWithDivergedCopyIsRejected() throws IOException {
+        logEvents(0, 4);
+        EventLogger followerLog = newLog("follower.log");
+        // Ends at a line break of the leader log, but with a different event
+        String diverged = new Event("up", START.plusMinutes(10)).toCSV() + "\n";
+        Files.writeString(followerLog.getEventFile().toPath(), diverged);
+        ReplicationFollower follower = startFollower(followerLog);
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> !follower.isRunning());
+        assertEquals(diverged, Files.readString(followerLog.getEventFile().toPath()));
+        assertTrue(leader.acknowledgedOffsets().isEmpty());
+    }
+
+    @Test
+    void testLineLongerThanBatchRejectsFollower() throws IOException {
+        Files.writeString(leaderLog.getEventFile().toPath(), "up," + "0".repeat(2 * 1024 * 1024) + "\n");
+        EventLogger followerLog = newLog("follower.log");
+        ReplicationFollower follower = startFollower(followerLog);
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> !follower.isRunning());
+        assertEquals(0, Files.size(followerLog.getEventFile().toPath()));
+    }
+
+    @Test
+    void testFrameLongerThanBatchStopsFollower() throws Exception {
+        for (int length : new int[]{ReplicationLeader.MAX_BATCH_BYTES + 1, -1}) {
+            try (ServerSocket fakeLeader = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+                Thread thread = new Thread(() -> {
+                    try (Socket socket = fakeLeader.accept()) {
+                        DataInputStream in = new DataInputStream(socket.getInputStream());
+                        DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+                        in.readLong();
+                        in.readLong();
+                        in.readLong();
+                        out.writeByte(ReplicationLeader.FRAME_DATA);
+                        out.writeLong(0);
+                        out.writeInt(length);
+                        out.flush();
+                        in.read();
+                    } catch (IOException e) {
+                        // The follower hung up
+                    }
+                });
+                thread.start();
+                EventLogger followerLog = newLog("follower-" + length + ".log");
+                ReplicationFollower follower = new ReplicationFollower(followerLog,
+                        fakeLeader.getInetAddress().getHostAddress(), fakeLeader.getLocalPort());
+                followers.add(follower);
+                follower.start();
+
+                await().atMost(5, TimeUnit.SECONDS).until(() -> !follower.isRunning());
+                assertEquals(0, Files.size(followerLog.getEventFile().toPath()));
+                thread.join(5000);
+            }
+        }
+    }
+
+    private EventLogger newLog(String name) {
+        EventLogger log = new EventLogger(directory.resolve(name).toString());
+        logs.add(log);
+        return log;
+    }
+
+    private ReplicationFollower startFollower(EventLogger followerLog) {
+        ReplicationFollower follower = new ReplicationFollower(followerLog, "localhost", leader.getPort());
+        followers.add(follower);
+        follower.start();
+        return follower;
+    }
+
+    private void awaitReplicated(EventLogger followerLog) {
+        Path leaderPath = leaderLog.getEventFile().toPath();
+        Path followerPath = followerLog.getEventFile().toPath();
+        await().atMost(10, TimeUnit.SECONDS).until(() -> Files.size(followerPath) == Files.size(leaderPath));
+    }
+
+    private void logEvents(int first, int count) {
+        for (int i = first; i < first + count; i++) {
+            leaderLog.logEvent(new Event(i % 2 == 0 ? "up" : "down", START.plusMinutes(i)));
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.servermanager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ReverseEventReaderTest {
+    private static final String TEST_EVENT_FILE = "test_reverse_events.log";
+    private static final String[] STATUSES = {"starting", "up", "stopping", "down"};
+    private final File file = new File(TEST_EVENT_FILE);
+
+    @BeforeEach
+    void setup() {
+        file.delete();
+    }
+
+    @AfterEach
+    void cleanup() {
+        file.delete();
+        new File(TEST_EVENT_FILE + ".idx").delete();
+    }
+
+    @Test
+    void testReadsAllEventsNewestFirstAcrossBlocks() throws IOException {
+        EventLogger eventLogger = new EventLogger(TEST_EVENT_FILE);
+        LocalDateTime start = LocalDateTime.parse("2024-01-01T00:00:00.123456");
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            content.append(new Event(STATUSES[i % STATUSES.length], start.plusSeconds(i)).toCSV()).append('\n');
+        }
+        Files.writeString(file.toPath(), content);
+
+        List<Event> expected = new ArrayList<>(eventLogger.getAllEvents());
+        Collections.reverse(expected);
+        assertEquals(expected, readAll());
+    }
+
+    @Test
+    void testReadsLastLineWithoutTrailingNewline() throws IOException {
+        Files.writeString(file.toPath(), "up,2024-01-01T10:00:00\ndown,2024-01-01T11:00:00");
+
+        assertEquals(List.of(
+                new Event("down", LocalDateTime.parse("2024-01-01T11:00:00")),
+                new Event("up", LocalDateTime.parse("2024-01-01T10:00:00"))), readAll());
+    }
+
+    @Test
+    void testSkipsMalformedLines() throws IOException {
+        Files.writeString(file.toPath(), "up,2024-01-01T10:00:00\ngarbage\n\ndown,not-a-date\n");
+
+        assertEquals(List.of(new Event("up", LocalDateTime.parse("2024-01-01T10:00:00"))), readAll());
+    }
+
+    @Test
+    void testNewestFirstQueriesSortALogWhereTheClockSteppedBack() throws IOException {
+        // Daylight saving time ended at 03:00, the clock went back to 02:00
+        Files.writeString(file.toPath(), """
+                starting,2024-10-27T02:30:00
+                up,2024-10-27T02:45:00
+                stopping,2024-10-27T02:10:00
+                down,2024-10-27T02:20:00
+                """);
+
+        try (EventLogger eventLogger = new EventLogger(TEST_EVENT_FILE)) {
+            List<Event> newest = eventLogger.filterEvents(null, null, null, false, 2);
+            assertEquals(List.of("up", "starting"), newest.stream().map(Event::status).toList());
+
+            List<Event> since = eventLogger.filterEvents(null, LocalDateTime.parse("2024-10-27T02:15:00"), null,
+                    false, 10);
+            assertEquals(List.of("up", "starting", "down"), since.stream().map(Event::status).toList());
+        }
+    }
+
+    @Test
+    void testEmptyLog() throws IOException {
+        Files.writeString(file.toPath(), "");
+        try (ReverseEventReader reader = new ReverseEventReader(file)) {
+            assertFalse(reader.hasNext());
+        }
+    }
+
+    private List<Event> readAll() throws IOException {
+        List<Event> events = new ArrayList<>();
+        try (ReverseEventReader reader = new ReverseEventReader(file)) {
+            reader.forEachRemaining(events::add);
+        }
+        return events;
+    }
+}
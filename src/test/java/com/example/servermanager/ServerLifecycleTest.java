@@ -0,0 +1,103 @@
+package com.example.servermanager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.example.servermanager.ServerLifecycle.State;
+import java.io.File;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.ArrayList;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ServerLifecycleTest {
+    private static final String TEST_EVENT_FILE = "test_lifecycle_events.log";
+    private static final Set<State> UP_FROM = EnumSet.of(State.DOWN, State.FAILED);
+    private EventLogger eventLogger;
+    private ServerLifecycle lifecycle;
+
+    @BeforeEach
+    void setup() {
+        new File(TEST_EVENT_FILE).delete();
+        eventLogger = new EventLogger(TEST_EVENT_FILE);
+        lifecycle = new ServerLifecycle(eventLogger, Clock.systemDefaultZone());
+    }
+
+    @AfterEach
+    void cleanup() throws IOException {
+        eventLogger.close();
+        new File(TEST_EVENT_FILE).delete();
+    }
+
+    @Test
+    void testTransitionsAreJournaled() {
+        assertNull(lifecycle.begin(State.STARTING, UP_FROM));
+        lifecycle.complete(State.STARTING, State.UP);
+        assertNull(lifecycle.begin(State.STOPPING, EnumSet.of(State.UP)));
+        lifecycle.complete(State.STOPPING, State.DOWN);
+
+        assertEquals(State.DOWN, lifecycle.state());
+        assertEquals(List.of("starting", "up", "stopping", "down"),
+                eventLogger.getAllEvents().stream().map(Event::status).toList());
+    }
+
+    @Test
+    void testInFlightTransitionBlocksOthers() {
+        assertNull(lifecycle.begin(State.STARTING, UP_FROM));
+
+        assertEquals(State.STARTING, lifecycle.begin(State.STARTING, EnumSet.allOf(State.class)));
+        assertEquals(State.STARTING, lifecycle.begin(State.STOPPING, EnumSet.allOf(State.class)));
+        assertEquals(1, eventLogger.getAllEvents().size());
+    }
+
+    @Test
+    void testStateIsRecoveredFromLog() {
+        eventLogger.logEvent(new Event("stopping", LocalDateTime.now()));
+
+        assertEquals(State.STOPPING, lifecycle.state());
+        // An orphaned transitional state can be left when the caller allows it
+        assertNull(lifecycle.begin(State.STOPPING, EnumSet.of(State.STOPPING)));
+    }
+
+    @Test
+    void testCompleteWithoutTransitionInFlight() {
+        assertThrows(IllegalStateException.class, () -> lifecycle.complete(State.STARTING, State.UP));
+    }
+
+    @Test
+    void testOnlyOneConcurrentCallerBeginsTransition() throws Exception {
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch ready = new CountDownLatch(1);
+        List<Future<State>> results = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            results.add(executor.submit(() -> {
+                ready.await();
+                return lifecycle.begin(State.STARTING, UP_FROM);
+            }));
+        }
+        ready.countDown();
+        int began = 0;
+        for (Future<State> result : results) {
+            if (result.get(5, TimeUnit.SECONDS) == null) {
+                began++;
+            }
+        }
+        executor.shutdown();
+
+        assertEquals(1, began);
+        assertEquals(1, eventLogger.getAllEvents().size());
+    }
+}
@@ -8,10 +8,21 @@ import static org.junit.jupiter.api.Assertions.fail;
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
 import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -35,6 +46,8 @@ public class ServerManagerTest {
             boolean result = file.delete();
             System.out.println("Deletion result is " + result + " for file " + TEST_EVENT_FILE);
         }
+        // Left behind by tiering tests
+        new File(TEST_EVENT_FILE + ".summary").delete();
         eventLogger = new EventLogger(TEST_EVENT_FILE);
         // Create a ServerManager that uses the test file and overrides randomPause
         serverManager = new ServerManager() {
@@ -53,11 +66,13 @@ public class ServerManagerTest {
     }
 
     @AfterEach
-    void cleanup() {
+    void cleanup() throws IOException {
         System.setOut(originalOut);
         System.setErr(originalErr);
         outputStream.reset();
         serverManager.shutdown();
+        serverManager.eventLogger.close();
+        eventLogger.close();
     }
 
     @Test
@@ -165,6 +180,30 @@ public class ServerManagerTest {
                   events.getLast().status().equals("failed"));
     }
 
+    @Test
+    void testDownKeepsSchedulerRunning() {
+        serverManager.up(LocalDateTime.now().plusHours(1).toString());
+        // Starting and stopping randomly fail, retry until the server is down
+        serverManager.down();
+        while (!"down".equals(eventLogger.getLastEvent().status())) {
+            serverManager.up(null);
+            serverManager.down();
+        }
+
+        // A second start can still schedule its shutdown
+        serverManager.up(LocalDateTime.now().plusHours(1).toString());
+        assertFalse(serverManager.isShutdown());
+        assertFalse(outputStream.toString().contains("Auto shutdown could not be scheduled"));
+    }
+
+    @Test
+    void testSchedulerThreadsDoNotKeepTheJvmRunning() throws Exception {
+        serverManager.up(LocalDateTime.now().plusHours(1).toString());
+
+        // A pending shutdown left behind by exit must not block the JVM from exiting
+        assertTrue(serverManager.scheduler.submit(() -> Thread.currentThread().isDaemon()).get());
+    }
+
     @Test
     void testDownCommandWhenAlreadyDown() {
         eventLogger.logEvent(new Event("down", LocalDateTime.now()));
@@ -249,6 +288,72 @@ public class ServerManagerTest {
         assertTrue(downIndex < upIndex);
     }
 
+    @Test
+    void testHistoryWithDescendingSortAndLimit() {
+        LocalDateTime now = LocalDateTime.now();
+        eventLogger.logEvent(new Event("starting", now.minusHours(3)));
+        eventLogger.logEvent(new Event("up", now.minusHours(2)));
+        eventLogger.logEvent(new Event("stopping", now.minusHours(1)));
+
+        serverManager.history(null, null, "desc", null, "2");
+        String output = outputStream.toString();
+        assertTrue(output.indexOf("stopping at") < output.indexOf("up at"));
+        assertFalse(output.contains("starting at"));
+    }
+
+    @Test
+    void testHistoryWithInvalidLimit() {
+        serverManager.history(null, null, "desc", null, "abc");
+        assertTrue(outputStream.toString().contains("Invalid limit"));
+    }
+
+    @Test
+    void testExportWithoutOutFile() {
+        serverManager.export(null, null, null, null, null);
+        assertTrue(outputStream.toString().contains("Missing --out file"));
+    }
+
+    @Test
+    void testExportWithUnsupportedFormat() {
+        serverManager.export(null, null, "out.xml", "xml", null);
+        assertTrue(outputStream.toString().contains("Unsupported export format"));
+    }
+
+    @Test
+    void testImportOfOlderEventsKeepsHistoryChronological() throws IOException {
+        eventLogger.logEvent(new Event("up", LocalDateTime.parse("2024-03-01T00:00:00")));
+        eventLogger.logEvent(new Event("down", LocalDateTime.parse("2024-03-02T00:00:00")));
+        Path imported = Files.writeString(Path.of("test_import_events.log"),
+                "failed,2024-01-05T00:00:00\nup,2024-01-06T00:00:00\n");
+        Path exported = Path.of("test_import_export.csv");
+        try {
+            serverManager.importEvents(List.of(imported.toString()));
+            serverManager.status();
+            assertTrue(outputStream.toString().contains("Last event: down at 2024-03-02T00:00"));
+
+            outputStream.reset();
+            serverManager.history(null, null, "desc", null);
+            String output = outputStream.toString();
+            int down = output.indexOf("down at 2024-03-02T00:00");
+            int up = output.indexOf("up at 2024-03-01T00:00");
+            int importedUp = output.indexOf("up at 2024-01-06T00:00");
+            int importedFailed = output.indexOf("failed at 2024-01-05T00:00");
+            assertTrue(down >= 0 && down < up && up < importedUp && importedUp < importedFailed);
+
+            outputStream.reset();
+            serverManager.history("2024-02-01", null, "desc", null);
+            output = outputStream.toString();
+            assertTrue(output.contains("down at") && output.contains("up at 2024-03-01T00:00"));
+            assertFalse(output.contains("2024-01-0"));
+
+            serverManager.export("2024-01-01", "2024-01-31", exported.toString(), "csv", null);
+            assertEquals(List.of("failed,2024-01-05T00:00:00", "up,2024-01-06T00:00:00"), Files.readAllLines(exported));
+        } finally {
+            Files.deleteIfExists(imported);
+            Files.deleteIfExists(exported);
+        }
+    }
+
     @Test
     void testUpCommandWhenStopping() {
         eventLogger.logEvent(new Event("stopping", LocalDateTime.now()));
@@ -314,6 +419,172 @@ public class ServerManagerTest {
         assertTrue(outputStream.toString().contains("No events found"));
     }
 
+    @Test
+    void testStatsSumsTimePerState() {
+        eventLogger.logEvent(new Event("starting", LocalDateTime.parse("2024-01-01T00:00:00")));
+        eventLogger.logEvent(new Event("up", LocalDateTime.parse("2024-01-01T00:00:10")));
+        eventLogger.logEvent(new Event("failed", LocalDateTime.parse("2024-01-01T01:00:10")));
+
+        serverManager.stats(null, "2024-01-01");
+        String output = outputStream.toString();
+        assertTrue(output.contains("starting: 00:00:10 ("));
+        assertTrue(output.contains("up: 01:00:00 ("));
+        assertTrue(output.contains("Transitions: 3, failures: 1"));
+    }
+
+    @Test
+    void testHistoryListsTieredSummaries() throws Exception {
+        LocalDateTime start = LocalDateTime.parse("2024-01-01T00:00:00");
+        eventLogger.logEvent(new Event("up", start));
+        eventLogger.logEvent(new Event("down", start.plusDays(2)));
+        VirtualClock clock = new VirtualClock(start.plusDays(3).toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+        new TieringJob(eventLogger, TieringPolicy.parse("1d=1d"), clock).runOnce();
+
+        serverManager.history(null, null, "asc", null);
+        String output = outputStream.toString();
+        assertTrue(output.indexOf("summary 2024-01-01T00:00 to 2024-01-02T00:00: up 24:00:00")
+                < output.indexOf("down at"));
+        assertFalse(output.contains("up at"));
+    }
+
+    @Test
+    void testFollowHistoryPrintsNewMatchingEvents() {
+        eventLogger.logEvent(new Event("failed", LocalDateTime.now().minusHours(1)));
+        EventFollower follower = serverManager.followHistory("failed");
+        try {
+            eventLogger.logEvent(new Event("up", LocalDateTime.now()));
+            eventLogger.logEvent(new Event("failed", LocalDateTime.now()));
+            await().atMost(5, TimeUnit.SECONDS)
+                    .until(() -> outputStream.toString().contains("failed at"));
+        } finally {
+            follower.close();
+        }
+        String output = outputStream.toString();
+        assertEquals(output.indexOf("failed at"), output.lastIndexOf("failed at"));
+        assertFalse(output.contains("up at"));
+    }
+
+    @Test
+    void testVirtualClockDrivesTimestampsAndPauses() {
+        Instant start = Instant.parse("2024-01-01T00:00:00Z");
+        VirtualClock virtualClock = new VirtualClock(start, ZoneOffset.UTC);
+        ServerManager simulated = new ServerManager(eventLogger, virtualClock, new Random(1)) {
+            @Override
+            protected void pause(long millis) {
+                virtualClock.advance(Duration.ofMillis(millis));
+            }
+        };
+
+        simulated.up(null);
+        simulated.shutdown();
+
+        List<Event> events = eventLogger.getAllEvents();
+        assertEquals(LocalDateTime.parse("2024-01-01T00:00:00"), events.get(0).timestamp());
+        Duration pause = Duration.between(events.get(0).timestamp(), events.get(1).timestamp());
+        assertTrue(pause.toMillis() >= 3000 && pause.toMillis() < 10000);
+    }
+
+    @Test
+    void testLoadWithInvalidArguments() {
+        serverManager.load("0", "abc");
+        assertTrue(outputStream.toString().contains("Invalid --servers or --cycles"));
+    }
+
+    @Test
+    void testLoadReportsAndDeletesItsDirectory() {
+        serverManager.load("2", "100");
+
+        String output = outputStream.toString();
+        assertTrue(output.contains("Write latency: n="));
+        Matcher matcher = Pattern.compile("simulated server\\(s\\) in (\\S+)").matcher(output);
+        assertTrue(matcher.find());
+        assertFalse(Files.exists(Path.of(matcher.group(1))));
+    }
+
+    @Test
+    void testReadOnlyRejectsUpAndDown() {
+        serverManager.setReadOnly(true);
+        serverManager.up(null);
+        serverManager.down();
+        assertTrue(outputStream.toString().contains("Read-only follower"));
+        assertTrue(eventLogger.getAllEvents().isEmpty());
+    }
+
+    @Test
+    void testManualDownDuringStartIsRejected() throws InterruptedException, IOException {
+        CountDownLatch starting = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ServerManager slowManager = new ServerManager() {
+            {
+                this.eventLogger = new EventLogger(TEST_EVENT_FILE);
+            }
+
+            @Override
+            protected void randomPause() {
+                starting.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        Thread up = new Thread(() -> slowManager.up(null));
+        up.start();
+        assertTrue(starting.await(5, TimeUnit.SECONDS));
+
+        slowManager.down();
+        release.countDown();
+        up.join(5000);
+
+        assertTrue(outputStream.toString().contains("Server is currently starting"));
+        List<Event> events = eventLogger.getAllEvents();
+        assertEquals(2, events.size());
+        assertEquals("starting", events.getFirst().status());
+        slowManager.shutdown();
+        slowManager.eventLogger.close();
+    }
+
+    @Test
+    void testScheduledShutdownDuringStartIsDeferred() throws InterruptedException, IOException {
+        CountDownLatch release = new CountDownLatch(1);
+        Random succeeding = new Random() {
+            @Override
+            public boolean nextBoolean() {
+                return true;
+            }
+        };
+        ServerManager slowManager = new ServerManager(new EventLogger(TEST_EVENT_FILE), Clock.systemDefaultZone(),
+                succeeding) {
+            @Override
+            protected void randomPause() {
+                if (release.getCount() > 0) {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        };
+        Thread up = new Thread(() -> slowManager.up(LocalDateTime.now().plusNanos(200_000_000).toString()));
+        up.start();
+        // The shutdown fires while the start is still in progress
+        await().atMost(5, TimeUnit.SECONDS)
+                .until(() -> outputStream.toString().contains("Scheduled shutdown deferred"));
+        release.countDown();
+        up.join(5000);
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> "down".equals(eventLogger.getLastEvent().status()));
+        List<Event> events = eventLogger.getAllEvents();
+        assertEquals(List.of("starting", "up", "stopping", "down"), events.stream().map(Event::status).toList());
+        // The deferred shutdown only ran once the start had finished
+        assertFalse(events.get(2).timestamp().isBefore(events.get(1).timestamp()));
+        assertFalse(outputStream.toString().contains("Server is currently starting"));
+        slowManager.shutdown();
+        slowManager.eventLogger.close();
+    }
+
     @Test
     void testRandomPauseInterruption() {
         Thread.currentThread().interrupt();
@@ -361,6 +632,29 @@ public class ServerManagerTest {
         assertFalse(output.contains("down at"));
     }
 
+    @Test
+    void testAtPrintsStateIntervals() {
+        LocalDateTime start = LocalDateTime.parse("2024-01-01T03:00");
+        eventLogger.logEvent(new Event("starting", start));
+        eventLogger.logEvent(new Event("up", start.plusSeconds(5)));
+        eventLogger.logEvent(new Event("stopping", start.plusHours(1)));
+
+        serverManager.at(List.of("2024-01-01T03:12", "2024-01-01T02:00", "2024-01-02T00:00"));
+
+        String output = outputStream.toString();
+        assertTrue(output.contains("2024-01-01T03:12: up since 2024-01-01T03:00:05 until 2024-01-01T04:00"));
+        assertTrue(output.contains("2024-01-01T02:00: no events logged yet"));
+        assertTrue(output.contains("2024-01-02T00:00: stopping since 2024-01-01T04:00"));
+        assertFalse(output.contains("since 2024-01-01T04:00 until"));
+        assertEquals("starting", serverManager.stateAt(start.plusSeconds(2)).status());
+    }
+
+    @Test
+    void testAtWithInvalidTimestamp() {
+        serverManager.at(List.of("03:12"));
+        assertTrue(outputStream.toString().contains("Invalid timestamp 03:12"));
+    }
+
     @Test
     void testRandomPauseRange() {
         // Create a ServerManager without overriding randomPause
@@ -0,0 +1,99 @@
+package com.example.servermanager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class StateTimelineTest {
+    private static final String TEST_EVENT_FILE = "test_timeline_events.log";
+    private static final LocalDateTime START = LocalDateTime.parse("2024-01-01T00:00:00");
+
+    private EventLogger eventLogger;
+    private StateTimeline timeline;
+
+    @BeforeEach
+    void setup() {
+        cleanup();
+        eventLogger = new EventLogger(TEST_EVENT_FILE);
+        timeline = new StateTimeline(Path.of(TEST_EVENT_FILE));
+    }
+
+    @AfterEach
+    void close() throws IOException {
+        eventLogger.close();
+        cleanup();
+    }
+
+    void cleanup() {
+        new File(TEST_EVENT_FILE).delete();
+    }
+
+    @Test
+    void testPointLookups() throws IOException {
+        eventLogger.logEvent(new Event("starting", START));
+        eventLogger.logEvent(new Event("up", START.plusSeconds(5)));
+        eventLogger.logEvent(new Event("up", START.plusMinutes(10)));
+        eventLogger.logEvent(new Event("stopping", START.plusHours(1)));
+
+        assertNull(timeline.at(START.minusNanos(1)));
+        assertEquals(new StateTimeline.Interval("starting", START, START.plusSeconds(5)), timeline.at(START));
+        assertEquals(new StateTimeline.Interval("up", START.plusSeconds(5), START.plusHours(1)),
+                timeline.at(START.plusMinutes(30)));
+        assertEquals(new StateTimeline.Interval("stopping", START.plusHours(1), null), timeline.at(START.plusYears(1)));
+        assertEquals(3, timeline.intervalCount());
+    }
+
+    @Test
+    void testBatchLookupMatchesPointLookups() throws IOException {
+        String[] statuses = {"starting", "up", "stopping", "down"};
+        for (int i = 0; i < 5000; i++) {
+            eventLogger.logEvent(new Event(statuses[i % statuses.length], START.plusMinutes(i)));
+        }
+        List<LocalDateTime> times = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            times.add(START.plusSeconds((i * 7919L) % 400_000 - 1000));
+        }
+
+        List<StateTimeline.Interval> batch = timeline.at(times);
+
+        for (int i = 0; i < times.size(); i++) {
+            assertEquals(timeline.at(times.get(i)), batch.get(i));
+        }
+    }
+
+    @Test
+    void testAppendedEventsExtendTimeline() throws IOException {
+        eventLogger.logEvent(new Event("up", START));
+        assertEquals(new StateTimeline.Interval("up", START, null), timeline.at(START.plusDays(1)));
+
+        eventLogger.logEvent(new Event("stopping", START.plusHours(2)));
+        eventLogger.logEvent(new Event("down", START.plusHours(2).plusSeconds(4)));
+
+        assertEquals(new StateTimeline.Interval("up", START, START.plusHours(2)), timeline.at(START.plusHours(1)));
+        assertEquals("down", timeline.at(START.plusDays(1)).status());
+    }
+
+    @Test
+    void testOutOfOrderAppendRebuildsTimeline() throws IOException {
+        eventLogger.logEvent(new Event("up", START));
+        eventLogger.logEvent(new Event("up", START.plusHours(2)));
+        timeline.at(START);
+
+        eventLogger.logEvents(Arrays.asList(new Event("failed", START.plusHours(1))));
+
+        assertEquals(Arrays.asList(new StateTimeline.Interval("up", START, START.plusHours(1)),
+                        new StateTimeline.Interval("failed", START.plusHours(1), START.plusHours(2)),
+                        new StateTimeline.Interval("up", START.plusHours(2), null)),
+                timeline.at(List.of(START, START.plusHours(1), START.plusHours(3))));
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.servermanager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class StatusIndexTest {
+    private static final String TEST_EVENT_FILE = "test_index_events.log";
+    private static final String[] STATUSES = {"starting", "up", "stopping", "down"};
+    private static final LocalDateTime START = LocalDateTime.parse("2024-01-01T00:00:00");
+    private final Path logPath = Path.of(TEST_EVENT_FILE);
+    private final Path sidecarPath = Path.of(TEST_EVENT_FILE + ".idx");
+
+    @BeforeEach
+    void setup() {
+        cleanup();
+    }
+
+    @AfterEach
+    void cleanup() {
+        new File(TEST_EVENT_FILE).delete();
+        sidecarPath.toFile().delete();
+    }
+
+    @Test
+    void testStatusQueryMatchesFullScan() throws IOException {
+        writeEvents(START, 5000, 100);
+        StatusIndex index = new StatusIndex(logPath);
+
+        List<Event> failed = index.query("failed", null, null);
+        List<Event> expected = new EventLogger(TEST_EVENT_FILE).getAllEvents().stream()
+                .filter(e -> e.status().equals("failed"))
+                .toList();
+        assertEquals(50, failed.size());
+        assertEquals(expected, failed);
+        assertEquals(5000 / StatusIndex.BLOCK_RECORDS, index.sealedBlockCount());
+    }
+
+    @Test
+    void testStatusAndTimeRangeQuery() throws IOException {
+        writeEvents(START, 5000, 10);
+        StatusIndex index = new StatusIndex(logPath);
+        LocalDateTime from = START.plusMinutes(1200);
+        LocalDateTime to = START.plusMinutes(3000);
+
+        List<Event> result = index.query("failed", from, to);
+
+        List<Event> expected = new EventLogger(TEST_EVENT_FILE).getAllEvents().stream()
+                .filter(e -> e.status().equals("failed"))
+                .filter(e -> !e.timestamp().isBefore(from) && !e.timestamp().isAfter(to))
+                .toList();
+        assertEquals(expected, result);
+        assertTrue(index.query("unknown", null, null).isEmpty());
+    }
+
+    @Test
+    void testSidecarIsReusedAndExtendedWithAppends() throws IOException {
+        writeEvents(START, 3000, 100);
+        new StatusIndex(logPath).query("failed", null, null);
+        assertTrue(sidecarPath.toFile().exists());
+
+        try (EventLogger logger = new EventLogger(TEST_EVENT_FILE)) {
+            logger.logEvent(new Event("failed", START.plusDays(30)));
+        }
+
+        StatusIndex reopened = new StatusIndex(logPath);
+        List<Event> failed = reopened.query("failed", START.plusDays(29), null);
+        assertEquals(List.of(new Event("failed", START.plusDays(30))), failed);
+        assertEquals(2, reopened.sealedBlockCount());
+    }
+
+    @Test
+    void testStaleSidecarIsRebuilt() throws IOException {
+        writeEvents(START, 3000, 100);
+        new StatusIndex(logPath).query("failed", null, null);
+
+        // Replace the log with different content of similar size
+        new File(TEST_EVENT_FILE).delete();
+        writeEvents(START.plusYears(1), 3000, 3);
+
+        List<Event> failed = new StatusIndex(logPath).query("failed", null, null);
+        assertEquals(1000, failed.size());
+        assertTrue(failed.stream().allMatch(e -> e.timestamp().getYear() == 2025));
+    }
+
+    @Test
+    void testDetectsTimestampsSteppingBack() throws IOException {
+        writeEvents(START, 3000, 100);
+        StatusIndex index = new StatusIndex(logPath);
+        assertTrue(index.isChronological());
+
+        // The next block starts before the previous one ends
+        writeEvents(START.plusMinutes(2990), 2000, 100);
+        assertFalse(index.isChronological());
+        assertFalse(new StatusIndex(logPath).isChronological());
+    }
+
+    @Test
+    void testDetectsTimestampsSteppingBackWithinTheTail() throws IOException {
+        writeEvents(START, 10, 100);
+        writeEvents(START, 1, 100);
+
+        assertFalse(new StatusIndex(logPath).isChronological());
+    }
+
+    private void writeEvents(LocalDateTime start, int count, int failureEvery) throws IOException {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(TEST_EVENT_FILE, true))) {
+            for (int i = 0; i < count; i++) {
+                String status = i % failureEvery == failureEvery - 1 ? "failed" : STATUSES[i % STATUSES.length];
+                writer.write(new Event(status, start.plusMinutes(i)).toCSV());
+                writer.newLine();
+            }
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.example.servermanager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.servermanager.ServerLifecycle.State;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class TieringJobTest {
+    private static final LocalDateTime START = LocalDateTime.parse("2024-01-01T00:00:00");
+    private static final LocalDateTime NOW = START.plusDays(60);
+
+    @TempDir
+    Path directory;
+
+    private EventLogger eventLogger;
+    private TieringJob job;
+
+    @BeforeEach
+    void setup() {
+        eventLogger = new EventLogger(directory.resolve("events.log").toString());
+        VirtualClock clock = new VirtualClock(NOW.toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+        job = new TieringJob(eventLogger, TieringPolicy.parse("7d=1h,30d=1d"), clock);
+    }
+
+    @AfterEach
+    void cleanup() throws IOException {
+        eventLogger.close();
+    }
+
+    @Test
+    void testOldEventsAreReplacedBySummaries() throws IOException {
+        logCycles(START, NOW.minusHours(1));
+        int before = eventLogger.getAllEvents().size();
+
+        TieringJob.Report report = job.runOnce();
+
+        List<Event> remaining = eventLogger.getAllEvents();
+        LocalDateTime hourlyFrom = NOW.minusDays(30);
+        LocalDateTime rawFrom = NOW.minusDays(7);
+        assertEquals(before, remaining.size() + report.summarizedEvents());
+        assertTrue(remaining.stream().noneMatch(event -> event.timestamp().isBefore(rawFrom)));
+        assertEquals(rawFrom, report.horizon());
+
+        List<PeriodSummary> summaries = eventLogger.summaries(null, null, null);
+        assertEquals(report.summaries(), summaries.size());
+        for (PeriodSummary summary : summaries) {
+            Duration length = Duration.between(summary.start(), summary.end());
+            if (summary.end().isAfter(hourlyFrom)) {
+                assertEquals(Duration.ofHours(1), length);
+            } else {
+                assertTrue(length.compareTo(Duration.ofDays(1)) <= 0);
+            }
+        }
+        // 30 days of daily summaries and 23 days of hourly ones instead of thousands of events
+        assertEquals(30 + 23 * 24, summaries.size());
+    }
+
+    @Test
+    void testStatisticsAreUnchangedByTiering() throws IOException {
+        logCycles(START, NOW.minusHours(1));
+        PeriodSummary before = eventLogger.stats(null, null, NOW);
+
+        job.runOnce();
+        PeriodSummary after = eventLogger.stats(null, null, NOW);
+
+        assertEquals(before.durations(), after.durations());
+        assertEquals(before.transitions(), after.transitions());
+        assertEquals(before.failures(), after.failures());
+        assertEquals(before.endState(), after.endState());
+        // Ranges that start at a summary boundary are answered exactly as well
+        LocalDateTime from = START.plusDays(40);
+        assertEquals(eventLogger.stats(from, null, NOW).duration(State.UP), statsOf(from, NOW).duration(State.UP));
+    }
+
+    @Test
+    void testRepeatedPassesAndAppendsKeepHistoryConsistent() throws IOException {
+        logCycles(START, NOW.minusDays(8));
+        job.runOnce();
+        PeriodSummary first = eventLogger.stats(null, null, NOW);
+
+        TieringJob.Report again = job.runOnce();
+        assertEquals(0, again.summarizedEvents());
+        assertEquals(first, eventLogger.stats(null, null, NOW));
+
+        eventLogger.logEvent(new Event("starting", NOW.minusMinutes(10)));
+        eventLogger.logEvent(new Event("up", NOW.minusMinutes(9)));
+        assertEquals("up", eventLogger.getLastEvent().status());
+        assertEquals(Duration.ofMinutes(9), eventLogger.stats(NOW.minusMinutes(30), null, NOW).duration(State.UP));
+    }
+
+    @Test
+    void testPassRemovesEventsLeftBehindByAnInterruptedPass() throws IOException {
+        logCycles(START, NOW.minusHours(1));
+        Path logPath = eventLogger.getEventFile().toPath();
+        byte[] untiered = Files.readAllBytes(logPath);
+        job.runOnce();
+        PeriodSummary tiered = eventLogger.stats(null, null, NOW);
+        LocalDateTime horizon = eventLogger.summaryStore().horizon();
+
+        // A pass that stopped after saving its summaries, before swapping the log
+        Files.write(logPath, untiered);
+        VirtualClock clock = new VirtualClock(NOW.toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+        try (EventLogger restarted = new EventLogger(logPath.toString())) {
+            new TieringJob(restarted, TieringPolicy.parse("7d=1h,30d=1d"), clock).runOnce();
+
+            assertTrue(restarted.getAllEvents().stream().noneMatch(event -> event.timestamp().isBefore(horizon)));
+            assertEquals(tiered, restarted.stats(null, null, NOW));
+        }
+    }
+
+    @Test
+    void testPointInTimeLookupsAccountForSummaries() throws IOException {
+        eventLogger.logEvent(new Event("starting", START));
+        eventLogger.logEvent(new Event("up", START.plusMinutes(1)));
+        eventLogger.logEvent(new Event("failed", NOW.minusDays(2)));
+        job.runOnce();
+        LocalDateTime horizon = eventLogger.summaryStore().horizon();
+
+        List<StateTimeline.Interval> intervals = eventLogger.statesAt(List.of(START.plusDays(1), horizon.plusHours(1),
+                NOW.minusDays(1)));
+
+        assertNull(intervals.get(0));
+        assertEquals(State.UP, eventLogger.summaryAt(START.plusDays(1)).endState());
+        assertEquals(new StateTimeline.Interval("up", horizon, NOW.minusDays(2)), intervals.get(1));
+        assertEquals(new StateTimeline.Interval("failed", NOW.minusDays(2), null), intervals.get(2));
+        assertNull(eventLogger.summaryAt(NOW.minusDays(1)));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new ServerManager(eventLogger, Clock.systemUTC(), new Random(), new PrintStream(output))
+                .at(List.of(START.plusDays(1).toString()));
+        assertTrue(output.toString().contains("summarized in " + START.plusDays(1) + " to "));
+        assertTrue(output.toString().contains("up at its end"));
+    }
+
+    @Test
+    void testHistoryHidesEventsLeftBehindByAnInterruptedPass() throws IOException {
+        logCycles(START, NOW.minusHours(1));
+        Path logPath = eventLogger.getEventFile().toPath();
+        byte[] untiered = Files.readAllBytes(logPath);
+        job.runOnce();
+        LocalDateTime horizon = eventLogger.summaryStore().horizon();
+        // The summaries are saved, the log is not swapped yet
+        Files.write(logPath, untiered);
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new ServerManager(eventLogger, Clock.systemUTC(), new Random(), new PrintStream(output))
+                .history(START.toLocalDate().toString(), null, null, null);
+
+        List<String> lines = output.toString().lines().toList();
+        assertEquals(eventLogger.summaries(null, null, null).size(), lines.stream()
+                .filter(line -> line.startsWith("summary ")).count());
+        assertTrue(lines.stream().filter(line -> !line.startsWith("summary "))
+                .map(line -> LocalDateTime.parse(line.substring(line.indexOf(" at ") + 4)))
+                .noneMatch(timestamp -> timestamp.isBefore(horizon)));
+    }
+
+    @Test
+    void testImportedEventsInSummarizedRangeAreSkipped() throws Exception {
+        logCycles(START, NOW.minusHours(1));
+        job.runOnce();
+        int before = eventLogger.getAllEvents().size();
+        Path file = Files.writeString(directory.resolve("host.log"), new Event("failed", START.plusDays(1)).toCSV()
+                + "\n" + new Event("failed", NOW.minusDays(2)).toCSV() + "\n");
+
+        EventImporter.Report report = new EventImporter(eventLogger).importFiles(List.of(file));
+
+        assertEquals(1, report.imported());
+        assertEquals(1, report.summarized());
+        assertEquals(before + 1, eventLogger.getAllEvents().size());
+    }
+
+    @Test
+    void testLastEventIsKeptRaw() throws IOException {
+        eventLogger.logEvent(new Event("up", START));
+
+        job.runOnce();
+
+        assertEquals(new Event("up", START), eventLogger.getLastEvent());
+        assertTrue(eventLogger.summaries(null, null, null).isEmpty());
+    }
+
+    @Test
+    void testInvalidPolicies() {
+        assertThrows(IllegalArgumentException.class, () -> TieringPolicy.parse("30d"));
+        assertThrows(IllegalArgumentException.class, () -> TieringPolicy.parse("30x=1h"));
+        assertThrows(IllegalArgumentException.class, () -> TieringPolicy.parse("30d=1h,7d=1d"));
+        assertThrows(IllegalArgumentException.class, () -> TieringPolicy.parse("7d=1h,30d=90m"));
+    }
+
+    /**
+     * Statistics of the untiered log, recomputed from the raw events in a fresh directory.
+     */
+    private PeriodSummary statsOf(LocalDateTime from, LocalDateTime now) throws IOException {
+        List<Event> events = new ArrayList<>();
+        logCycles(START, NOW.minusHours(1), events);
+        try (EventLogger untiered = new EventLogger(directory.resolve("untiered.log").toString())) {
+            untiered.logEvents(events);
+            return untiered.stats(from, null, now);
+        }
+    }
+
+    private void logCycles(LocalDateTime from, LocalDateTime to) throws IOException {
+        List<Event> events = new ArrayList<>();
+        logCycles(from, to, events);
+        eventLogger.logEvents(events);
+    }
+
+    /**
+     * Up/down cycles of a few hours with occasional failures.
+     */
+    private static void logCycles(LocalDateTime from, LocalDateTime to, List<Event> events) {
+        Random random = new Random(3);
+        LocalDateTime time = from;
+        while (time.isBefore(to)) {
+            events.add(new Event("starting", time));
+            time = time.plusSeconds(3 + random.nextInt(8));
+            boolean failed = random.nextInt(10) == 0;
+            events.add(new Event(failed ? "failed" : "up", time));
+            time = time.plusMinutes(30 + random.nextInt(300));
+            if (!failed) {
+                events.add(new Event("stopping", time));
+                time = time.plusSeconds(3 + random.nextInt(8));
+                events.add(new Event("down", time));
+                time = time.plusMinutes(random.nextInt(120));
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.servermanager.benchmark;
+
+import com.example.servermanager.Event;
+import com.example.servermanager.EventEncoder;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares encoding log lines through {@link Event#toCSV()} with the {@link EventEncoder}. Run with
+ * {@code -prof gc} to see the allocation rate per event.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class EventEncodingBenchmark {
+    private static final String[] STATUSES = {"starting", "up", "stopping", "down", "failed"};
+    private static final LocalDateTime START = LocalDateTime.parse("2020-01-01T00:00:00");
+    private static final int EVENTS = 1024;
+
+    private final Event[] events = new Event[EVENTS];
+    private final ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+    private final EventEncoder encoder = new EventEncoder(64 * 1024);
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(42);
+        for (int i = 0; i < EVENTS; i++) {
+            // Mix whole seconds with millisecond and nanosecond fractions like LocalDateTime.now() produces
+            long nanos = switch (i % 3) {
+                case 0 -> 0;
+                case 1 -> random.nextInt(1000) * 1_000_000L;
+                default -> random.nextInt(1_000_000_000);
+            };
+            events[i] = new Event(STATUSES[i % STATUSES.length], START.plusSeconds(i * 37L).plusNanos(nanos));
+        }
+    }
+
+    @Benchmark
+    public int toCsv() {
+        Event event = events[next++ & (EVENTS - 1)];
+        if (buffer.remaining() < 64) {
+            buffer.clear();
+        }
+        buffer.put((event.toCSV() + "\n").getBytes(StandardCharsets.UTF_8));
+        return buffer.position();
+    }
+
+    @Benchmark
+    public int encoder() {
+        Event event = events[next++ & (EVENTS - 1)];
+        if (!encoder.encode(event)) {
+            encoder.buffer().clear();
+            encoder.encode(event);
+        }
+        return encoder.buffer().position();
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.servermanager.benchmark;
+
+import com.example.servermanager.Event;
+import com.example.servermanager.EventLogger;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares history queries answered from the log and the heap-resident history cache with the off-heap store on a
+ * large log, in a small heap. Run with {@code -prof gc} for the GC count and pause time of each:
+ * {@code mvn -Pbenchmark test-compile exec:exec -Djmh.args="HistoryStorage -prof gc"}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview", "-Xmx256m"})
+@State(Scope.Benchmark)
+public class HistoryStorageBenchmark {
+    private static final String[] CYCLE = {"starting", "up", "stopping", "down"};
+    private static final double FAILURE_RATE = 0.01;
+    private static final LocalDateTime START = LocalDateTime.parse("2020-01-01T00:00:00");
+
+    @Param({"2000000"})
+    private int events;
+
+    @Param({"file", "offHeap"})
+    private String storage;
+
+    private File file;
+    private EventLogger eventLogger;
+    private LocalDateTime from;
+    private LocalDateTime to;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        file = File.createTempFile("storage-benchmark", ".log");
+        Random random = new Random(42);
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
+            for (int i = 0; i < events; i++) {
+                String status = random.nextDouble() < FAILURE_RATE ? "failed" : CYCLE[i % CYCLE.length];
+                writer.write(new Event(status, START.plusSeconds(i * 37L)).toCSV());
+                writer.newLine();
+            }
+        }
+        eventLogger = new EventLogger(file.getPath());
+        eventLogger.setOffHeapStore(storage.equals("offHeap"));
+        // Build the index or the records once, as they would be after the first query in production
+        eventLogger.filterEvents("failed", null, null, true);
+        from = START.plusSeconds(events * 37L / 2);
+        to = from.plusDays(30);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        eventLogger.close();
+        file.delete();
+        new File(file.getPath() + ".idx").delete();
+    }
+
+    @Benchmark
+    public List<Event> failedAscending() {
+        return eventLogger.filterEvents("failed", null, null, true);
+    }
+
+    @Benchmark
+    public List<Event> monthAscending() {
+        return eventLogger.filterEvents(null, from, to, true);
+    }
+
+    @Benchmark
+    public long upAscendingStreamed(Blackhole blackhole) {
+        // A quarter of the log, more than the sort budget
+        return eventLogger.forEachEvent("up", null, null, true, 0, blackhole::consume);
+    }
+}
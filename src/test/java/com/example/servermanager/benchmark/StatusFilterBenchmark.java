@@ -0,0 +1,113 @@
+package com.example.servermanager.benchmark;
+
+import com.example.servermanager.Event;
+import com.example.servermanager.EventLogger;
+import com.example.servermanager.StatusIndex;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares {@code history --status} filtering through the status index with the previous full scan,
+ * on a log where 1% of the events are failures. The index is queried directly, {@link EventLogger#filterEvents}
+ * would answer repeated queries from the history cache instead.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StatusFilterBenchmark {
+    private static final String[] CYCLE = {"starting", "up", "stopping", "down"};
+    private static final double FAILURE_RATE = 0.01;
+    private static final LocalDateTime START = LocalDateTime.parse("2020-01-01T00:00:00");
+
+    @Param({"1000000"})
+    private int events;
+
+    private File file;
+    private EventLogger eventLogger;
+    private StatusIndex statusIndex;
+    private LocalDateTime from;
+    private LocalDateTime to;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        file = File.createTempFile("status-benchmark", ".log");
+        Random random = new Random(42);
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
+            for (int i = 0; i < events; i++) {
+                String status = random.nextDouble() < FAILURE_RATE ? "failed" : CYCLE[i % CYCLE.length];
+                writer.write(new Event(status, START.plusSeconds(i * 37L)).toCSV());
+                writer.newLine();
+            }
+        }
+        eventLogger = new EventLogger(file.getPath());
+        statusIndex = new StatusIndex(file.toPath());
+        // Build the sidecar once, as it would be after the first query in production
+        statusIndex.query("failed", null, null);
+        from = START.plusSeconds(events * 37L / 2);
+        to = from.plusDays(7);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        eventLogger.close();
+        file.delete();
+        new File(file.getPath() + ".idx").delete();
+    }
+
+    @Benchmark
+    public List<Event> failedFullScan() {
+        return eventLogger.getAllEvents().stream()
+                .filter(e -> e.status().equals("failed"))
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Event> failedIndexed() throws IOException {
+        return sorted(statusIndex.query("failed", null, null));
+    }
+
+    @Benchmark
+    public List<Event> failedInWeekFullScan() {
+        return eventLogger.getAllEvents().stream()
+                .filter(e -> e.status().equals("failed"))
+                .filter(e -> !e.timestamp().isBefore(from) && !e.timestamp().isAfter(to))
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Event> failedInWeekIndexed() throws IOException {
+        return sorted(statusIndex.query("failed", from, to));
+    }
+
+    /**
+     * Orders the index results by timestamp, as history did when it queried the index without the cache.
+     */
+    private static List<Event> sorted(List<Event> events) {
+        events.sort(Comparator.comparing(Event::timestamp));
+        return events;
+    }
+}